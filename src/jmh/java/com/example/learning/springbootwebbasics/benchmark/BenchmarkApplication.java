@@ -0,0 +1,51 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.learning.springbootwebbasics.SpringBootWebBasicsApplication;
+
+/*
+ * ベンチマーク用にアプリケーションコンテキストを起動するヘルパーです。
+ * SQL やリクエストごとのログ出力は計測結果を歪めるため無効にする。
+ * 同時実行数の制限も無効にする（ 503 で即座に拒否された応答がスループットに数えられないようにするため）。
+ * 制限を含めて計測する場合は、app.tasks.concurrency.enabled=true を指定する。
+ */
+public final class BenchmarkApplication {
+
+    private static final String[] QUIET_PROPERTIES = {
+            "spring.jpa.show-sql=false",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "logging.level.root=WARN",
+            "logging.level.com.example.learning.springbootwebbasics=WARN",
+            "app.tasks.concurrency.enabled=false",
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    // Web サーバーを起動せずにコンテキストを起動する（サービス層のベンチマーク用）
+    public static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    // 指定した種類でコンテキストを起動する
+    public static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        // 同じキーは後から指定した値を優先する（コマンドライン引数で重複すると値がカンマで連結されるため）
+        Map<String, String> merged = new LinkedHashMap<>();
+        Stream.of(QUIET_PROPERTIES, new String[] { "server.port=0" }, properties)
+                .flatMap(Arrays::stream)
+                .forEach(property -> merged.put(property.substring(0, property.indexOf('=')), property));
+        // builder.properties() は既定値扱いで application.properties に上書きされるため、コマンドライン引数として渡す
+        String[] args = merged.values().stream().map(property -> "--" + property).toArray(String[]::new);
+        return new SpringApplicationBuilder(SpringBootWebBasicsApplication.class)
+                .web(type)
+                .run(args);
+    }
+}
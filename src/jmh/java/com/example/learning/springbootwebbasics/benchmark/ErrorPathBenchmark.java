@@ -0,0 +1,70 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskService;
+
+/*
+ * GET /api/tasks/{id} の 200（キャッシュ済みのタスク）と 404（存在しない ID ）のスループットを MockMvc で比較するベンチマークです。
+ * 404 は TaskNotFoundException から GlobalExceptionHandler での ProblemDetail 生成までを含む。
+ * タスクが見つからない場合の WARN ログはコンソール出力が計測を支配するため、このベンチマークでは出力しない。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private String existingTaskUri;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "logging.level.com.example.learning.springbootwebbasics=ERROR");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        Task task = context.getBean(TaskService.class).createTask(new Task("Benchmark task", "found", false));
+        existingTaskUri = "/api/tasks/" + task.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getExistingTask() throws Exception {
+        return mockMvc.perform(get(existingTaskUri)).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int getMissingTask() throws Exception {
+        return mockMvc.perform(get("/api/tasks/999999999")).andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.learning.springbootwebbasics.GlobalExceptionHandler;
+import com.example.learning.springbootwebbasics.TaskController;
+import com.example.learning.springbootwebbasics.TaskNotFoundException;
+import com.example.learning.springbootwebbasics.TaskRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * GlobalExceptionHandler による ProblemDetail の組み立てを計測するベンチマークです。
+ * 例外の生成（スタックトレースの取得を含む）もエラー経路のコストに含めて計測する。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+
+    private ServletWebRequest webRequest;
+
+    private MethodParameter createTaskParameter;
+
+    private final TaskRequest invalidRequest = new TaskRequest("", null, false);
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/tasks/42"));
+        Method createTask = Arrays.stream(TaskController.class.getMethods())
+                .filter(method -> method.getName().equals("createTask"))
+                .findFirst()
+                .orElseThrow();
+        createTaskParameter = new MethodParameter(createTask, createTask.getParameterCount() - 1); // @RequestBody TaskRequest
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> notFound() {
+        TaskNotFoundException ex = new TaskNotFoundException(42L, "Task with ID 42 not found");
+        return handler.handleResponseStatusException(ex, webRequest);
+    }
+
+    // 比較用：スタックトレースを取得する ResponseStatusException での 404
+    @Benchmark
+    public ResponseEntity<ProblemDetail> notFoundWithStackTrace() {
+        ResponseStatusException ex = new ResponseStatusException(HttpStatus.NOT_FOUND, "Task with ID 42 not found");
+        return handler.handleResponseStatusException(ex, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> validationFailure() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalidRequest, "taskRequest");
+        bindingResult.addError(new FieldError("taskRequest", "title", "タイトルは必須です。"));
+        MethodArgumentNotValidException ex = new MethodArgumentNotValidException(createTaskParameter, bindingResult);
+        return handler.handleValidationExceptions(ex, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> unexpectedError() {
+        return handler.handleGeneralException(new IllegalStateException("boom"), webRequest);
+    }
+}
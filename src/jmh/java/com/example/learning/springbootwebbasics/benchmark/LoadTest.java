@@ -0,0 +1,409 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+ * タスク API のエンドツーエンドの負荷試験です（ JMH ではなく main から実行する）。
+ * インメモリ H2 でアプリケーションを起動し、タスクを投入した後、
+ * GET /api/tasks/{id}・一覧・POST・PUT・DELETE を指定した比率で、指定した到着率（オープンモデル）で送信する。
+ * 到着間隔は固定シードの指数分布（ポアソン到着）で、応答を待たずに次のリクエストを送る。
+ * レイテンシは予定した送信時刻から応答の受信までを計測する（サーバーが詰まった間の待ち時間も含めるため）。
+ * 結果（操作ごとの p50 / p99 / p999・スループット・エラー数）は JSON ファイルに書き出す。
+ * パーセンタイルとスループットは成功（ 2xx ）の応答だけで集計する。
+ * 503 で即座に拒否された応答や失敗した応答を含めると、過負荷で処理を諦めた分だけレイテンシが良く見えるため。
+ * 拒否・失敗の件数は別に数え、その割合が上限を超えた場合は受け入れ判定に失敗する。
+ *
+ * 実行例：./mvnw -Pbenchmark,load-test -DskipTests verify -Dload.args="--rate=300 --duration=60s"
+ * 引数（ --name=value ）：
+ *   rate             1 秒あたりの到着数（既定 200 ）
+ *   duration         計測時間（既定 30s ）
+ *   warmup           計測前のウォームアップ時間。この間の結果は捨てる（既定 10s ）
+ *   seed-tasks       事前に投入するタスク数（既定 1000 ）
+ *   mix              操作の比率（既定 get:60,list:15,post:10,put:10,delete:5 ）
+ *   seed             到着間隔・操作の選択に使う乱数のシード（既定 42 ）
+ *   max-outstanding  応答待ちのリクエスト数の上限。超えた到着は送信せずに dropped として数える（既定 10000 ）
+ *   output           結果の出力先（既定 target/load-test-result.json ）
+ *   max-p99          全操作の p99 の上限。超えた場合は終了コード 1 で終了する（受け入れ判定用、既定なし）
+ *   max-shed-rate    503 で拒否された割合の上限。超えた場合は終了コード 1 で終了する（既定 0.01 ）
+ *   max-error-rate   失敗した割合の上限（ 503 以外の 2xx 以外の応答・通信エラー・送信しなかった到着）。
+ *                    超えた場合は終了コード 1 で終了する（既定 0.01 ）
+ */
+public final class LoadTest {
+
+    // 送信する操作の種類
+    enum Operation {
+        GET, LIST, POST, PUT, DELETE
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+
+    private final List<Long> seededIds;
+
+    // POST で作成したタスクの ID（ DELETE の対象）
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+
+    private LoadTest(String baseUrl, List<Long> seededIds) {
+        this.baseUrl = baseUrl;
+        this.seededIds = seededIds;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        int seedTasks = Integer.parseInt(options.getOrDefault("seed-tasks", "1000"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", "get:60,list:15,post:10,put:10,delete:5"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int maxOutstanding = Integer.parseInt(options.getOrDefault("max-outstanding", "10000"));
+        Path output = Path.of(options.getOrDefault("output", "target/load-test-result.json"));
+        Duration maxP99 = options.containsKey("max-p99") ? DurationStyle.detectAndParse(options.get("max-p99")) : null;
+        double maxShedRate = Double.parseDouble(options.getOrDefault("max-shed-rate", "0.01"));
+        double maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+
+        Report report;
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                // 過負荷時の振る舞いも含めて計測するため、同時実行数の制限は本番と同じく有効にする
+                "app.tasks.concurrency.enabled=true")) {
+            String port = context.getBean(Environment.class).getProperty("local.server.port");
+            TaskService taskService = context.getBean(TaskService.class);
+            List<Long> seededIds = new ArrayList<>(seedTasks);
+            for (int i = 0; i < seedTasks; i++) {
+                seededIds.add(taskService.createTask(new Task("Load test task " + i, "seeded description " + i, i % 2 == 0)).getId());
+            }
+            LoadTest loadTest = new LoadTest("http://localhost:" + port, seededIds);
+            report = loadTest.run(rate, duration, warmup, mix, seed, maxOutstanding, seedTasks);
+        }
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .indentOutput(true)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        objectMapper.writeValue(output.toFile(), report);
+        print(report);
+        System.out.println("Result is saved to " + output.toAbsolutePath());
+
+        boolean passed = true;
+        if (maxP99 != null && report.operations().get("all").p99Millis() > maxP99.toNanos() / 1_000_000.0) {
+            System.out.println("p99 exceeded the limit: " + maxP99);
+            passed = false;
+        }
+        if (report.shedRate() > maxShedRate) {
+            System.out.printf("Shed rate %.4f exceeded the limit: %s%n", report.shedRate(), maxShedRate);
+            passed = false;
+        }
+        if (report.errorRate() > maxErrorRate) {
+            System.out.printf("Error rate %.4f exceeded the limit: %s%n", report.errorRate(), maxErrorRate);
+            passed = false;
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private Report run(double rate, Duration duration, Duration warmup, Map<Operation, Integer> mix, long seed,
+            int maxOutstanding, int seedTasks) throws InterruptedException {
+        Random random = new Random(seed);
+        Operation[] table = weightedTable(mix);
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        long dropped = 0;
+        long meanIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long measureStart = start + warmup.toNanos();
+            long end = measureStart + duration.toNanos();
+            long intended = start;
+            long sequence = 0;
+            while (true) {
+                // 指数分布の到着間隔（ポアソン到着）
+                intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+                if (intended - end >= 0) {
+                    break;
+                }
+                Operation operation = table[random.nextInt(table.length)];
+                Long targetId = seededIds.isEmpty() ? null : seededIds.get(random.nextInt(seededIds.size()));
+                long n = sequence++;
+                waitUntil(intended);
+                boolean measured = intended - measureStart >= 0;
+                if (!outstanding.tryAcquire()) {
+                    if (measured) {
+                        dropped++;
+                    }
+                    continue;
+                }
+                long intendedStart = intended;
+                executor.execute(() -> {
+                    try {
+                        send(operation, targetId, n, intendedStart, measured);
+                    } finally {
+                        outstanding.release();
+                    }
+                });
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        Map<String, OperationResult> operations = new LinkedHashMap<>();
+        LatencyRecorder all = new LatencyRecorder();
+        for (Map.Entry<Operation, LatencyRecorder> entry : recorders.entrySet()) {
+            if (mix.getOrDefault(entry.getKey(), 0) > 0) {
+                operations.put(entry.getKey().name().toLowerCase(), entry.getValue().result(seconds));
+            }
+            all.addAll(entry.getValue());
+        }
+        operations.put("all", all.result(seconds));
+        Map<String, Integer> mixByName = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> mixByName.put(operation.name().toLowerCase(), weight));
+        OperationResult total = operations.get("all");
+        // 送信しなかった到着も、処理できなかったリクエストとして分母と失敗に含める
+        long attempted = total.requests() + dropped;
+        double shedRate = attempted == 0 ? 0 : (double) total.shed() / attempted;
+        double errorRate = attempted == 0 ? 0 : (double) (total.errors() + dropped) / attempted;
+        return new Report(Instant.now(), rate, duration.toSeconds(), warmup.toSeconds(), seedTasks, seed, mixByName,
+                dropped, shedRate, errorRate, operations);
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void send(Operation operation, Long seededId, long sequence, long intendedStart, boolean measured) {
+        HttpRequest request = switch (operation) {
+            case GET -> request("/api/tasks/" + seededId).GET().build();
+            case LIST -> request("/api/tasks?limit=50").GET().build();
+            case POST -> request("/api/tasks").header("Content-Type", "application/json")
+                    .POST(body("Load test create " + sequence, false)).build();
+            case PUT -> request("/api/tasks/" + seededId).header("Content-Type", "application/json")
+                    .PUT(body("Load test update " + sequence, sequence % 2 == 0)).build();
+            case DELETE -> {
+                Long createdId = createdIds.poll();
+                // 削除できるタスクがまだない場合は送信しない
+                yield createdId == null ? null : request("/api/tasks/" + createdId).DELETE().build();
+            }
+        };
+        LatencyRecorder recorder = recorders.get(operation);
+        if (request == null) {
+            if (measured) {
+                recorder.skipped();
+            }
+            return;
+        }
+        int status;
+        String responseBody = null;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            responseBody = response.body();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        }
+        long latency = System.nanoTime() - intendedStart;
+        if (operation == Operation.POST && status == 201 && responseBody != null) {
+            createdIds.add(parseId(responseBody));
+        }
+        if (measured) {
+            recorder.record(latency, status);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static HttpRequest.BodyPublisher body(String title, boolean completed) {
+        return HttpRequest.BodyPublishers.ofString(
+                "{\"title\":\"" + title + "\",\"description\":\"created by load test\",\"completed\":" + completed + "}");
+    }
+
+    // レスポンスの "id" を取り出す（ ObjectMapper で全体を解析するコストを送信側にかけないため）
+    private static Long parseId(String body) {
+        int index = body.indexOf("\"id\":") + 5;
+        int endIndex = index;
+        while (endIndex < body.length() && Character.isDigit(body.charAt(endIndex))) {
+            endIndex++;
+        }
+        return Long.parseLong(body, index, endIndex, 10);
+    }
+
+    private static Operation[] weightedTable(Map<Operation, Integer> mix) {
+        List<Operation> table = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        });
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("mix must contain at least one operation");
+        }
+        return table.toArray(Operation[]::new);
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Arguments must be in the form --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split(":");
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%nLoad test: rate=%.0f/s duration=%ds warmup=%ds seed-tasks=%d dropped=%d shed-rate=%.4f error-rate=%.4f%n",
+                report.rate(), report.durationSeconds(), report.warmupSeconds(), report.seedTasks(), report.dropped(),
+                report.shedRate(), report.errorRate());
+        System.out.printf("%-8s %8s %8s %10s %8s %8s %8s %10s %10s %10s %10s%n",
+                "op", "requests", "ok", "ok/s", "errors", "shed", "skipped", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        report.operations().forEach((name, result) -> System.out.printf("%-8s %8d %8d %10.1f %8d %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, result.requests(), result.succeeded(), result.throughput(), result.errors(), result.shed(), result.skipped(),
+                result.p50Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis()));
+    }
+
+    // 操作ごとの成功した応答のレイテンシ（ナノ秒）と応答の内訳を記録する
+    static final class LatencyRecorder {
+
+        private long[] latencies = new long[1024];
+
+        // 成功した応答の件数（ latencies の有効な要素数）
+        private int count;
+
+        // 応答（通信エラーを含む）の件数
+        private long requests;
+
+        private long errors;
+
+        private long shed;
+
+        private long skipped;
+
+        // ステータスコードごとの件数（通信エラー・タイムアウトは -1 ）
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void record(long latencyNanos, int status) {
+            requests++;
+            statuses.merge(status, 1L, Long::sum);
+            if (status == 503) {
+                shed++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            } else {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latencyNanos;
+            }
+        }
+
+        synchronized void skipped() {
+            skipped++;
+        }
+
+        synchronized void addAll(LatencyRecorder other) {
+            synchronized (other) {
+                for (int i = 0; i < other.count; i++) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = other.latencies[i];
+                }
+                requests += other.requests;
+                errors += other.errors;
+                shed += other.shed;
+                skipped += other.skipped;
+                other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+            }
+        }
+
+        synchronized OperationResult result(double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new OperationResult(requests, count, count / seconds, errors, shed, skipped, new TreeMap<>(statuses),
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        // nearest-rank 法によるパーセンタイル（ミリ秒）
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+
+    // 操作ごとの結果（ shed は 503 で拒否された件数、errors はそれ以外の 2xx 以外の応答と通信エラーの件数）
+    // throughput とパーセンタイルは成功した応答（ succeeded 件）だけで集計する
+    record OperationResult(long requests, long succeeded, double throughput, long errors, long shed, long skipped, Map<Integer, Long> statuses,
+            double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    // 負荷試験の結果（ dropped は応答待ちの上限を超えたため送信しなかった到着数）
+    // shedRate・errorRate は、送信しなかった到着を含む全到着数に対する割合
+    record Report(Instant finishedAt, double rate, long durationSeconds, long warmupSeconds, int seedTasks, long seed,
+            Map<String, Integer> mix, long dropped, double shedRate, double errorRate, Map<String, OperationResult> operations) {
+    }
+}
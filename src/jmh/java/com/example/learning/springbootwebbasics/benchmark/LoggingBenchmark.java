@@ -0,0 +1,107 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+
+/*
+ * リクエストスレッド上でのログ出力 1 回あたりのコスト（テールレイテンシ）を計測するベンチマークです。
+ * sync：logback-spring.xml（開発用・prod とも）と同じく、イベントごとに flush する同期ファイル出力
+ * async：AsyncAppender（ neverBlock ）経由のファイル出力（ prod への採用を検討している候補）
+ * SampleTime モードで p99 / p99.9 も出力される。
+ * 1 vCPU の環境での結果は sync の p99 83 µs に対し async は 4.2 ms だったため、prod は同期出力のままにしている。
+ * バックグラウンドの出力スレッドがリクエストスレッドと CPU を奪い合うためと考えられ、複数コアの環境で再計測する。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @Param({ "sync", "async" })
+    private String mode;
+
+    private LoggerContext loggerContext;
+
+    private Logger logger;
+
+    private File logFile;
+
+    private long id = 42L;
+
+    @Setup
+    public void setUp() throws IOException {
+        // アプリケーションのログ設定に影響しないよう、独立した LoggerContext を使う
+        loggerContext = new LoggerContext();
+        logFile = Files.createTempFile("logging-benchmark", ".log").toFile();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(loggerContext);
+        fileAppender.setFile(logFile.getAbsolutePath());
+        fileAppender.setEncoder(encoder);
+        fileAppender.setImmediateFlush(mode.equals("sync"));
+        fileAppender.start();
+
+        Appender<ILoggingEvent> appender = fileAppender;
+        if (mode.equals("async")) {
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(loggerContext);
+            asyncAppender.setQueueSize(8192);
+            asyncAppender.setDiscardingThreshold(1024);
+            asyncAppender.setNeverBlock(true);
+            asyncAppender.addAppender(fileAppender);
+            asyncAppender.start();
+            appender = asyncAppender;
+        }
+
+        logger = loggerContext.getLogger("com.example.learning.springbootwebbasics.TaskController");
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+        logFile.delete();
+    }
+
+    @Benchmark
+    public void logRequestReceived() {
+        logger.info("ID: {} のタスク取得リクエストを受信しました。", id);
+    }
+}
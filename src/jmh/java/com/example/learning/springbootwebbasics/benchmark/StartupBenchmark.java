@@ -0,0 +1,83 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * アプリケーションの起動時間（ JVM 起動からコンテキストのリフレッシュ完了まで）を計測するベンチマークです。
+ * 別プロセスで java -jar を実行し、 spring.context.exit=onRefresh でリフレッシュ直後に終了させる。
+ * jar : 通常の実行可能 JAR（ target/spring-boot-web-basics-0.0.1-SNAPSHOT.jar ）
+ * fast-start : AOT 処理 + CDS アーカイブを使った展開済み JAR（ target/fast-start ）
+ * fast-start を計測する前に ./mvnw -Pfast-start -DskipTests package を実行しておく必要がある。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String JAR_NAME = "spring-boot-web-basics-0.0.1-SNAPSHOT.jar";
+
+    @Param({ "jar", "fast-start" })
+    private String mode;
+
+    private List<String> command;
+
+    @Setup
+    public void setUp() {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        command = new ArrayList<>(List.of(java, "-Dspring.context.exit=onRefresh"));
+        Path jar;
+        if ("fast-start".equals(mode)) {
+            Path archive = Path.of("target", "fast-start", "application.jsa");
+            requireFile(archive);
+            command.add("-XX:SharedArchiveFile=" + archive);
+            command.add("-Dspring.aot.enabled=true");
+            jar = Path.of("target", "fast-start", JAR_NAME);
+        } else {
+            jar = Path.of("target", JAR_NAME);
+        }
+        requireFile(jar);
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=0"));
+        if ("fast-start".equals(mode)) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+    }
+
+    private static void requireFile(Path path) {
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException(path + " が見つかりません。 ./mvnw -Pfast-start -DskipTests package を先に実行してください。");
+        }
+    }
+
+    @Benchmark
+    public int startUntilRefreshed() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("アプリケーションの起動に失敗しました。終了コード: " + exitCode);
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskSearchHit;
+import com.example.learning.springbootwebbasics.TaskSearchIndex;
+
+/*
+ * TaskSearchIndex の検索と差分更新を、タスク数を変えて計測するベンチマークです。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSearchIndexBenchmark {
+
+    private static final String[] WORDS = { "買い物", "会議", "資料", "レビュー", "deploy", "release", "invoice", "牛乳", "電話", "予約" };
+
+    @Param({ "10000", "100000" })
+    private int taskCount;
+
+    private TaskSearchIndex index;
+
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        index = new TaskSearchIndex(null); // 起動時の再構築は使わないため TaskService は不要
+        for (long id = 1; id <= taskCount; id++) {
+            index.index(newTask(id));
+        }
+        nextId = taskCount + 1;
+    }
+
+    private static Task newTask(long id) {
+        String title = WORDS[(int) (id % WORDS.length)] + " " + WORDS[(int) ((id / 7) % WORDS.length)] + " " + id;
+        Task task = new Task(title, "タスク " + id + " の説明 " + WORDS[(int) ((id / 13) % WORDS.length)], id % 3 == 0);
+        task.setId(id);
+        return task;
+    }
+
+    @Benchmark
+    public List<TaskSearchHit> searchSingleTerm() {
+        return index.search("invoice", 20);
+    }
+
+    @Benchmark
+    public List<TaskSearchHit> searchJapaneseMultiTerm() {
+        return index.search("会議 資料", 20);
+    }
+
+    @Benchmark
+    public void indexAndRemove() {
+        long id = nextId++;
+        index.index(newTask(id));
+        index.remove(id);
+    }
+}
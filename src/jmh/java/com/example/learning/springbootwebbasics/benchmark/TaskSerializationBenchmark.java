@@ -0,0 +1,101 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Task / List<Task> / List<TaskSummary> の Jackson シリアライズを計測するベンチマークです。
+ * ObjectMapper は Spring Boot と同じ Jackson2ObjectMapperBuilder で構築する。
+ * List<Task> は JSON に加えて CBOR / Smile（ Accept で選べるバイナリ形式）でも計測する。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSerializationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper cborMapper;
+
+    private ObjectMapper smileMapper;
+
+    private Task task;
+
+    private List<Task> tasks;
+
+    private List<TaskSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        task = newTask(1L);
+        tasks = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            tasks.add(newTask(id));
+        }
+        summaries = tasks.stream()
+                .map(t -> new TaskSummary(t.getId(), t.getTitle(), t.isCompleted(), t.getUpdatedAt()))
+                .toList();
+    }
+
+    private static Task newTask(long id) {
+        Task task = new Task("Benchmark task " + id, "A description that is roughly as long as a real one " + id, id % 2 == 0);
+        task.setId(id);
+        task.setCreatedAt(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        return task;
+    }
+
+    @Benchmark
+    public byte[] serializeTask() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskListCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskListSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskPage;
+import com.example.learning.springbootwebbasics.TaskRepository;
+import com.example.learning.springbootwebbasics.TaskRequest;
+import com.example.learning.springbootwebbasics.TaskService;
+import com.example.learning.springbootwebbasics.TaskSummary;
+
+/*
+ * TaskService の CRUD 操作をインメモリ H2 に対して計測するベンチマークです。
+ * キャッシュ経由の取得と、リポジトリを直接呼ぶ取得（キャッシュなし）を比較できる。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskServiceBenchmark {
+
+    private static final int SEEDED_TASKS = 1000;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private TaskRepository taskRepository;
+
+    private List<Long> ids;
+
+    private final TaskRequest updateRequest = new TaskRequest("Benchmark update", "updated by benchmark", true);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        taskService = context.getBean(TaskService.class);
+        taskRepository = context.getBean(TaskRepository.class);
+        for (int i = 0; i < SEEDED_TASKS; i++) {
+            taskService.createTask(new Task("Benchmark task " + i, "seeded description " + i, i % 2 == 0));
+        }
+        ids = taskRepository.findAll().stream().map(Task::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskByIdCached() {
+        return taskService.findTaskById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskByIdUncached() {
+        return taskRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public TaskPage<Task> findFirstPage() {
+        return taskService.findPage(0L, 50, null);
+    }
+
+    @Benchmark
+    public TaskPage<TaskSummary> findFirstSummaryPage() {
+        return taskService.findSummaryPage(0L, 50, null);
+    }
+
+    @Benchmark
+    public Optional<Task> updateTask() {
+        return taskService.udateTask(randomId(), updateRequest);
+    }
+
+    @Benchmark
+    public boolean createAndDeleteTask() {
+        Task created = taskService.createTask(new Task("Benchmark create", "created by benchmark", false));
+        return taskService.deleteTask(created.getId());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.learning.springbootwebbasics.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.learning.springbootwebbasics.Task;
+import com.example.learning.springbootwebbasics.TaskService;
+
+/*
+ * Tomcat のワーカースレッド（プラットフォームスレッド）と仮想スレッドで、
+ * 同時接続数がワーカー数を超えたときのスループットとレイテンシを比較するベンチマークです。
+ * 両モードとも Tomcat の最大ワーカー数を 16 に絞り、64 クライアントから DB を読む一覧 API を呼び出す。
+ * 実行例：./mvnw -Pbenchmark -DskipTests verify -Djmh.args="VirtualThreadsBenchmark"
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+
+    private static final int SEEDED_TASKS = 200;
+
+    @Param({ "false", "true" })
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private HttpRequest listRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.threads.max=16",
+                "spring.datasource.hikari.maximum-pool-size=20");
+        TaskService taskService = context.getBean(TaskService.class);
+        for (int i = 0; i < SEEDED_TASKS; i++) {
+            taskService.createTask(new Task("Benchmark task " + i, "seeded description " + i, i % 2 == 0));
+        }
+        String port = context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        listRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/tasks?limit=50")).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int listTasks() throws IOException, InterruptedException {
+        int status = httpClient.send(listRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+        // エラー応答は正常な応答よりはるかに速く返るため、スループットに数えず計測を失敗させる
+        if (status != 200) {
+            throw new IllegalStateException("Unexpected status: " + status);
+        }
+        return status;
+    }
+}
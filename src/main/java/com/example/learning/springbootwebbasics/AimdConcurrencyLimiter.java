@@ -0,0 +1,96 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * 同時実行数の上限を処理時間に応じて調整するリミッターです（ AIMD：加算増加・乗算減少）。
+ * 処理時間がしきい値以下で、上限の半分以上を使っている間は上限を 1 ずつ増やし、
+ * しきい値を超えた場合は上限を backoffRatio 倍に減らす。
+ * 減少は、前回減らした後に開始したリクエストの結果でのみ行う（遅いリクエストがまとめて完了したときに、上限を一気に下げすぎないため）。
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    // 実行中のリクエスト数
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    // 最後に上限を減らした時刻（ System.nanoTime ）
+    private long lastDecreaseNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max: min=" + minLimit
+                    + ", initial=" + initialLimit + ", max=" + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1 (exclusive): " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /*
+     * 上限に空きがあれば実行枠を確保する。
+     * @return 確保できた場合は true（ 処理の完了後に必ず release を呼ぶこと ）、上限に達している場合は false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /*
+     * 実行枠を解放し、処理時間を上限の調整に反映する。
+     * @param startNanos tryAcquire の直後に取得した System.nanoTime の値
+     */
+    public void release(long startNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        onSample(startNanos, now - startNanos, inFlightAtCompletion);
+    }
+
+    // 処理時間を上限の調整に反映せずに実行枠を解放する（処理を行わずに枠を返す場合に使う）
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long startNanos, long latencyNanos, int inFlightAtCompletion) {
+        if (latencyNanos > latencyThresholdNanos) {
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } else if (inFlightAtCompletion * 2 >= limit) {
+            // 上限を使い切っていない（負荷が低い）間は増やさない
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+ * キャッシュの設定クラスです。
+ * キャッシュの実装（ Caffeine ）と上限・TTL は application.properties の spring.cache.* で指定する。
+ */
+@Configuration
+// キャッシュの判定をトランザクションより外側で行い、ヒット時はトランザクションも DB アクセスも発生させない
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    // ID によるタスク取得のキャッシュ名
+    public static final String TASKS_CACHE = "tasks";
+
+}
@@ -0,0 +1,50 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.List;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "キャッシュ統計API", description = "アプリケーション内キャッシュの統計情報を提供するAPIです。")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // キャッシュごとの統計情報
+    public record CacheStatistics(String name, long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+    }
+
+    // 全キャッシュの統計情報を取得
+    @GetMapping("/stats")
+    @Operation(summary = "キャッシュ統計の取得", description = "キャッシュごとのヒット数・ミス数・ヒット率・破棄数を取得します。")
+    @ApiResponse(responseCode = "200", description = "キャッシュ統計を正常に取得しました。")
+    public ResponseEntity<List<CacheStatistics>> getCacheStats() {
+        List<CacheStatistics> statistics = cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(CaffeineCache.class::isInstance)
+                .map(CaffeineCache.class::cast)
+                .map(cache -> {
+                    CacheStats stats = cache.getNativeCache().stats();
+                    return new CacheStatistics(cache.getName(), cache.getNativeCache().estimatedSize(),
+                            stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+                })
+                .toList();
+        return ResponseEntity.ok(statistics);
+    }
+}
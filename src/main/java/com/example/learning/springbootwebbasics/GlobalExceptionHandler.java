@@ -6,8 +6,10 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -17,10 +19,14 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /*
  * アプリケーション全発生する例外をハンドリングするクラスです。
  * @ReestControllerAdvice 全てのコントローラーに対するアドバイスとして機能する
@@ -28,6 +34,95 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 @RestControllerAdvice // @ControllerAdvice + @ResponseBody を含む。REST API 向け。
 public class GlobalExceptionHandler {
 
+    // エラー件数のメトリクス名（ type：ハンドラーの種類、status：HTTP ステータスコード）
+    private static final String ERRORS_METRIC = "tasks.api.errors";
+
+    // 問題タイプの URI (RFC 7807)。リクエストごとに解析しないよう、共有の定数にする
+    private static final URI ABOUT_BLANK = URI.create("about:blank");
+
+    // ハンドラーごとに固定の部分（ status・title・type ）をまとめたテンプレート
+    private static final ProblemTemplate VALIDATION_FAILED = new ProblemTemplate(HttpStatus.BAD_REQUEST, "Bad Request");
+    private static final ProblemTemplate RESOURCE_NOT_FOUND = new ProblemTemplate(HttpStatus.NOT_FOUND, "Resource Not Found");
+    private static final ProblemTemplate METHOD_NOT_ALLOWED = new ProblemTemplate(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed");
+    private static final ProblemTemplate SERVICE_UNAVAILABLE = new ProblemTemplate(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable");
+    private static final ProblemTemplate INTERNAL_SERVER_ERROR = new ProblemTemplate(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error");
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter validationErrors;
+
+    private final Counter noHandlerFoundErrors;
+
+    private final Counter methodNotAllowedErrors;
+
+    private final Counter unexpectedErrors;
+
+    private final Counter overloadedErrors;
+
+    // ResponseStatusException のステータスコードごとのカウンターとテンプレート（エラーのたびに作り直さないようキャッシュする）
+    private final Map<Integer, ResponseStatusErrors> responseStatusErrors = new ConcurrentHashMap<>();
+
+    // ステータスコードごとのエラー件数カウンターと ProblemDetail のテンプレート
+    private record ResponseStatusErrors(Counter counter, ProblemTemplate template) {
+    }
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validationErrors = errorCounter("validation", HttpStatus.BAD_REQUEST.value());
+        this.noHandlerFoundErrors = errorCounter("no_handler_found", HttpStatus.NOT_FOUND.value());
+        this.methodNotAllowedErrors = errorCounter("method_not_allowed", HttpStatus.METHOD_NOT_ALLOWED.value());
+        this.unexpectedErrors = errorCounter("unexpected", HttpStatus.INTERNAL_SERVER_ERROR.value());
+        this.overloadedErrors = errorCounter("overloaded", HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    // ハンドラーの種類とステータスコードごとのエラー件数カウンターを取得する
+    private Counter errorCounter(String type, int status) {
+        return Counter.builder(ERRORS_METRIC)
+                .description("GlobalExceptionHandler で処理したエラーの件数")
+                .tag("type", type)
+                .tag("status", String.valueOf(status))
+                .register(meterRegistry);
+    }
+
+    /*
+     * ProblemDetail のうち、ステータスごとに変わらない部分（ status・title・type ）を保持するテンプレートです。
+     * ProblemDetail は可変のため共有できない。リクエストごとに新しいインスタンスを作り、detail と instance だけを設定する。
+     */
+    private record ProblemTemplate(HttpStatusCode status, String title) {
+
+        // ResponseStatusException のステータスコードからテンプレートを作る（ title は標準の reason phrase ）
+        static ProblemTemplate of(HttpStatusCode status) {
+            String title = (status instanceof HttpStatus httpStatus)
+                    ? httpStatus.getReasonPhrase()
+                    : String.valueOf(status.value());
+            return new ProblemTemplate(status, title);
+        }
+
+        ProblemDetail create(String detail, WebRequest request) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+            problemDetail.setTitle(title);
+            problemDetail.setType(ABOUT_BLANK);
+            problemDetail.setInstance(instanceOf(request));
+            return problemDetail;
+        }
+    }
+
+    /*
+     * ProblemDetail の instance に設定するリクエスト URI を取得する。
+     * WebRequest#getDescription による文字列の組み立てと切り出しを避け、リクエストから直接取得する。
+     * URI として解析できないパス（不正なクライアントからのリクエストなど）の場合は null（ instance を設定しない）。
+     */
+    private static URI instanceOf(WebRequest request) {
+        String path = (request instanceof ServletWebRequest servletRequest)
+                ? servletRequest.getRequest().getRequestURI()
+                : request.getDescription(false).substring(4);
+        try {
+            return URI.create(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /*
      * バリデーションエラー（ jakarta.validation アノテーションによる検証失敗）をハンドリングする。
      * HTTP ステータスコード：400 Bad Request
@@ -39,16 +134,10 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ProblemDetail> handleValidationExceptions(MethodArgumentNotValidException ex, WebRequest request) {
+        validationErrors.increment();
 
-        // RFC 7807 に準拠した ProblemDetail オブジェクトを作成
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-            HttpStatus.BAD_REQUEST, // 400 Bad Request
-            "Validation failed to request body." // エラーの詳細メッセージ
-        );
-
-        problemDetail.setTitle("Bad Request"); // エラーのタイトル
-        problemDetail.setType(URI.create("about:blank")); // 問題タイプの URI (RFC 7870)
-        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4))); // リクエスト URI
+        // RFC 7807 に準拠した ProblemDetail オブジェクトを作成（ 400 Bad Request ）
+        ProblemDetail problemDetail = VALIDATION_FAILED.create("Validation failed to request body.", request);
 
         // エラーフィールドとメッセージのマップを作成
         Map<String, String> errors = ex.getBindingResult().getFieldErrors().stream()
@@ -77,13 +166,8 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<ProblemDetail> handleNoHandlerFoundException(NoHandlerFoundException ex, WebRequest request) {
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.NOT_FOUND, // 404 Not Found
-                "The requested resource was not found."
-        );
-        problemDetail.setTitle("Resource Not Found");
-        problemDetail.setType(URI.create("about:blank"));
-        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4)));
+        noHandlerFoundErrors.increment();
+        ProblemDetail problemDetail = RESOURCE_NOT_FOUND.create("The requested resource was not found.", request); // 404 Not Found
         problemDetail.setProperty("timesamp", Instant.now());
         problemDetail.setProperty("requestedPath", ex.getRequestURL()); // リクエストされたパスを含める
         
@@ -100,13 +184,9 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<ProblemDetail> handleMethodNotSupportedException(HttpRequestMethodNotSupportedException ex, WebRequest request) {
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-                HttpStatus.METHOD_NOT_ALLOWED, // 405 Method Not Allowed
-                "HTTP method '" + ex.getMethod() + "'not supported for this endpoint."
-        );
-        problemDetail.setTitle("Method Not Allowed");
-        problemDetail.setType(URI.create("about:blank"));
-        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4)));
+        methodNotAllowedErrors.increment();
+        ProblemDetail problemDetail = METHOD_NOT_ALLOWED.create( // 405 Method Not Allowed
+                "HTTP method '" + ex.getMethod() + "'not supported for this endpoint.", request);
         problemDetail.setProperty("timestamp", Instant.now());
         // サポートされている HTTP メソッドをカンマ区切り文字列で含める
         // getSuportedHttpMethods() が null を返す可能性があるため、Optional でラップして安全に処理
@@ -122,20 +202,44 @@ public class GlobalExceptionHandler {
 
     }
 
+    /*
+     * 同時実行数の上限による拒否（ TaskConcurrencyLimitInterceptor ）をハンドリングする。
+     * HTTP ステータスコード：503 Service Unavailable
+     * 問題詳細：再試行までの秒数を Retry-After ヘッダーと retryAfterSeconds プロパティに含める。
+     * 過負荷時に大量に発生するため、ResponseStatusException と同様にリクエストごとの登録や解析を行わない。
+     * @Param: ex TaskOverloadedException 例外オブジェクト
+     * @Param: request WebRequest オブジェクト
+     * @return: カスタムされた ProblemDetail を含む ResponseEntity
+     */
+    @ExceptionHandler(TaskOverloadedException.class)
+    public ResponseEntity<ProblemDetail> handleOverloadedException(TaskOverloadedException ex, WebRequest request) {
+        overloadedErrors.increment();
+        ProblemDetail problemDetail = SERVICE_UNAVAILABLE.create(ex.getReason(), request); // 503 Service Unavailable
+        problemDetail.setProperty("timestamp", Instant.now());
+        // Retry-After は秒単位の整数（ 1 秒未満は 1 秒に切り上げる）
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        problemDetail.setProperty("retryAfterSeconds", retryAfterSeconds);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(problemDetail);
+    }
+
+    /*
+     * ResponseStatusException（ TaskNotFoundException / InvalidTaskRequestException を含む）をハンドリングする。
+     * 404 / 400 はエラーが集中しやすいため、カウンターの登録やテンプレートの作成をリクエストごとに行わない。
+     */
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ProblemDetail> handleResponseStatusException(ResponseStatusException ex, WebRequest request) {
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-            ex.getStatusCode(), // ResponseStatusException が持つ HTTP ステータスコードを使用
-            ex.getReason() // ResponseStatusException が持つ理由（メッセージ）を使用
-        );
         HttpStatusCode statusCode = ex.getStatusCode();
-        if (statusCode instanceof HttpStatusCode) {
-            problemDetail.setTitle(((HttpStatus) statusCode).getReasonPhrase());
-        } else {
-            problemDetail.setTitle(String.valueOf(statusCode.value()));
+        ResponseStatusErrors errors = responseStatusErrors.get(statusCode.value());
+        if (errors == null) { // 初回だけ登録する（登録済みの場合はラムダを生成しない）
+            errors = responseStatusErrors.computeIfAbsent(statusCode.value(), status -> new ResponseStatusErrors(
+                    errorCounter("response_status", status), ProblemTemplate.of(statusCode)));
         }
-        problemDetail.setType(URI.create("about:blank"));
-        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4)));
+        errors.counter().increment(); // 404 / 400 などステータスごとに集計
+        // ResponseStatusException が持つ HTTP ステータスコードと理由（メッセージ）を使用
+        ProblemDetail problemDetail = errors.template().create(ex.getReason(), request);
         problemDetail.setProperty("timestamp", Instant.now());
 
         return ResponseEntity.status(ex.getStatusCode()).body(problemDetail);
@@ -144,14 +248,9 @@ public class GlobalExceptionHandler {
     // その他の一般的な例外のハンドリング
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ProblemDetail> handleGeneralException(Exception ex, WebRequest request) {
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
-            HttpStatus.INTERNAL_SERVER_ERROR, // 500 Internal Server Error
-            "An unexpected error occured." // 一般的なエラーメッセージ
-        );
-
-        problemDetail.setTitle("Internal Server Error");
-        problemDetail.setType(URI.create("about:blank"));
-        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4)));
+        unexpectedErrors.increment();
+        ProblemDetail problemDetail = INTERNAL_SERVER_ERROR.create( // 500 Internal Server Error
+            "An unexpected error occured.", request); // 一般的なエラーメッセージ
         problemDetail.setProperty("timestamp", Instant.now());
 
         // 開発環境などでデバッグ用にスタックトレースを含めることも可能だが
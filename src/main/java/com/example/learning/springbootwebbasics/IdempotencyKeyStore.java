@@ -0,0 +1,100 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/*
+ * POST /api/tasks の Idempotency-Key ごとに、最初のリクエストで作成したタスクを保持するストアです。
+ * 件数の上限（ app.tasks.idempotency.max-keys ）と保持期間（ app.tasks.idempotency.ttl ）を持つ Caffeine キャッシュで、
+ * 同じキーの再送には保持しているタスクを返し、タスクを再作成しない。
+ * 同じキーのリクエストが同時に届いた場合は、最初の 1 件だけが作成処理を行い、残りはその完了を待って同じ結果を返す。
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    // キーの最大長（これを超えるキーは 400 ）
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Entry> entries;
+
+    // リクエスト内容と、作成処理の結果（処理中は未完了）
+    private record Entry(TaskRequestFingerprint fingerprint, CompletableFuture<Task> result) {
+    }
+
+    // 同じキーで異なるリクエストが送られていないか比較するための、リクエスト内容
+    private record TaskRequestFingerprint(String title, String description, boolean completed) {
+
+        static TaskRequestFingerprint of(TaskRequest request) {
+            return new TaskRequestFingerprint(request.getTitle(), request.getDescription(), request.isCompleted());
+        }
+    }
+
+    /*
+     * 作成結果と、それが保持していた結果の再送（リプレイ）かどうか。
+     */
+    public record Outcome(Task task, boolean replayed) {
+    }
+
+    public IdempotencyKeyStore(@Value("${app.tasks.idempotency.max-keys:10000}") long maxKeys,
+            @Value("${app.tasks.idempotency.ttl:24h}") Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /*
+     * キーに対してタスクを 1 回だけ作成する。
+     * @param key Idempotency-Key ヘッダーの値
+     * @param request 作成リクエスト（同じキーで内容が異なる場合は 422 ）
+     * @param creator タスクを作成する処理（キーごとに最初のリクエストでのみ呼び出される）
+     * @return 作成したタスク、または保持していたタスク
+     */
+    public Outcome createOnce(String key, TaskRequest request, Supplier<Task> creator) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidTaskRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        TaskRequestFingerprint fingerprint = TaskRequestFingerprint.of(request);
+        while (true) {
+            Entry entry = new Entry(fingerprint, new CompletableFuture<>());
+            Entry existing = entries.asMap().putIfAbsent(key, entry);
+            if (existing == null) {
+                return new Outcome(create(key, entry, creator), false);
+            }
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key " + key + " was already used with a different request body");
+            }
+            try {
+                return new Outcome(existing.result().join(), true);
+            } catch (CompletionException e) {
+                // 先行したリクエストが失敗した場合、キーは削除されているため作成をやり直す
+            }
+        }
+    }
+
+    // 作成処理を実行して結果を保持する。失敗した場合はキーを削除し、後続のリクエストで再試行できるようにする
+    private Task create(String key, Entry entry, Supplier<Task> creator) {
+        try {
+            // 保持するのは作成時点のコピー（後続の処理でインスタンスが変更されても、リプレイの内容は変わらない）
+            Task task = creator.get().copy();
+            entry.result().complete(task);
+            return task;
+        } catch (Throwable e) {
+            // Error も含めて必ず完了させる（未完了のままだと、待機中のリクエストが戻らずキーも TTL まで残る）
+            entries.asMap().remove(key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+}
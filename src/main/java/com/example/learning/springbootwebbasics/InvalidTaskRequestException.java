@@ -0,0 +1,22 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/*
+ * クエリパラメーターやヘッダーの指定が不正であることを表す例外です（ 400 Bad Request ）。
+ * クライアントの誤りによる想定内のエラーのため、スタックトレースを取得しない。
+ * GlobalExceptionHandler では ResponseStatusException として処理される。
+ */
+public class InvalidTaskRequestException extends ResponseStatusException {
+
+    public InvalidTaskRequestException(String reason) {
+        super(HttpStatus.BAD_REQUEST, reason);
+    }
+
+    // スタックトレースを取得しない
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * 遅延初期化（ spring.main.lazy-initialization=true ）の対象を、起動に不要な Bean に限定する設定クラスです。
+ * fast-start プロファイルで遅延初期化を有効にした場合、OpenAPI（ springdoc ）の Bean だけを初回アクセス時に生成し、
+ * それ以外（リポジトリ、キャッシュ、@Scheduled や起動時のイベントリスナーを持つ Bean など）は従来どおり起動時に生成する。
+ * 遅延初期化が無効の場合、このフィルターは使われない。
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    // 遅延初期化してよい Bean のパッケージ
+    private static final String[] LAZY_PACKAGES = { "org.springdoc." };
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerUnlessNonCritical() {
+        return (beanName, beanDefinition, beanType) -> !isNonCritical(beanType);
+    }
+
+    private static boolean isNonCritical(Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        for (String lazyPackage : LAZY_PACKAGES) {
+            if (beanType.getName().startsWith(lazyPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
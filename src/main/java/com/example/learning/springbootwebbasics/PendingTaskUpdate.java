@@ -0,0 +1,52 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.LocalDateTime;
+
+/*
+ * write-behind モードでバッファに溜めている、まだ DB に反映していないタスクの更新内容です。
+ * null の項目は変更しない。description は null への変更もあり得るため、descriptionSet で指定の有無を表す。
+ * updatedAt はバッファに受け付けた日時で、反映前の読み取り（ ETag を含む）に使われる。
+ */
+public record PendingTaskUpdate(String title, boolean descriptionSet, String description, Boolean completed,
+        LocalDateTime updatedAt) {
+
+    // PUT（全項目の更新）から作成する
+    public static PendingTaskUpdate of(TaskRequest request, LocalDateTime updatedAt) {
+        return new PendingTaskUpdate(request.getTitle(), true, request.getDescription(), request.isCompleted(), updatedAt);
+    }
+
+    // PATCH（指定された項目だけの更新）から作成する
+    public static PendingTaskUpdate of(TaskPatchRequest request, LocalDateTime updatedAt) {
+        return new PendingTaskUpdate(request.getTitle(), request.getDescription() != null, request.getDescription(),
+                request.getCompleted(), updatedAt);
+    }
+
+    // より新しい更新 newer をこの更新に重ねた結果を返す（ newer で指定された項目が優先される）
+    public PendingTaskUpdate mergeWith(PendingTaskUpdate newer) {
+        return new PendingTaskUpdate(
+                newer.title != null ? newer.title : title,
+                newer.descriptionSet || descriptionSet,
+                newer.descriptionSet ? newer.description : description,
+                newer.completed != null ? newer.completed : completed,
+                newer.updatedAt);
+    }
+
+    // 更新内容を重ねた要約を返す（要約に含まれない項目は無視する）
+    public TaskSummary applyTo(TaskSummary summary) {
+        return new TaskSummary(summary.id(), title != null ? title : summary.title(),
+                completed != null ? completed : summary.completed(), updatedAt);
+    }
+
+    // 更新内容をタスクに反映する（ updatedAt は反映しない）
+    public void applyTo(Task task) {
+        if (title != null) {
+            task.setTitle(title);
+        }
+        if (descriptionSet) {
+            task.setDescription(description);
+        }
+        if (completed != null) {
+            task.setCompleted(completed);
+        }
+    }
+}
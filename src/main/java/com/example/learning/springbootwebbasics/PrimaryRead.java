@@ -0,0 +1,19 @@
+package com.example.learning.springbootwebbasics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * 読み取り専用トランザクションでも、レプリカではなくプライマリから読み込むメソッドに付けるアノテーションです。
+ * 読み込んだ結果をキャッシュや統計などのインメモリの状態に載せるメソッドに付け、レプリカの遅延による古い値が残り続けないようにする。
+ * レプリカへの振り分け（ app.datasource.replica.enabled ）が無効の場合は何もしない。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PrimaryRead {
+
+}
@@ -0,0 +1,24 @@
+package com.example.learning.springbootwebbasics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/*
+ * @PrimaryRead を付けたメソッドの実行中、読み取り専用の接続をプライマリから取得させるアスペクトです。
+ * 接続は最初の SQL の実行時に取得される（ LazyConnectionDataSourceProxy ）ため、トランザクションより内側で設定しても有効になる。
+ * レプリカへの振り分けが有効な場合だけ、ReplicaDataSourceConfig で登録する。
+ */
+@Aspect
+public class PrimaryReadAspect {
+
+    @Around("@annotation(com.example.learning.springbootwebbasics.PrimaryRead)")
+    public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReadOnlyRoutingDataSource.forcePrimary(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadOnlyRoutingDataSource.forcePrimary(previous);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/*
+ * 読み取り専用の接続を、レプリカとプライマリのどちらから取得するかを決める DataSource です。
+ * LazyConnectionDataSourceProxy の readOnlyDataSource として使い、読み取り専用トランザクションの接続だけがここを通る。
+ * 次の場合はレプリカではなくプライマリを使う。
+ * - レプリカの遅延が許容範囲（ app.datasource.replica.max-lag ）を超えている、またはまだ同期していない
+ * - @PrimaryRead を付けたメソッドの実行中
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    // 振り分け先
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    // @PrimaryRead のメソッドを実行中かどうか
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final BooleanSupplier replicaUsable;
+
+    public ReadOnlyRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PRIMARY_FORCED.get() || !replicaUsable.getAsBoolean()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    /*
+     * 現在のスレッドで読み取り専用の接続をプライマリから取得するかを設定する。
+     * @return 設定前の値（呼び出し元で元に戻すために使う）
+     */
+    static boolean forcePrimary(boolean forced) {
+        boolean previous = PRIMARY_FORCED.get();
+        if (forced) {
+            PRIMARY_FORCED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_FORCED.remove();
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * 読み取り専用トランザクションをレプリカに、それ以外をプライマリに振り分ける DataSource の設定クラスです。
+ * app.datasource.replica.enabled=true の場合だけ有効になり、Spring Boot の DataSource の自動設定の代わりに使われる。
+ * - プライマリ：spring.datasource.*（接続プールは spring.datasource.hikari.* ）
+ * - レプリカ：app.datasource.replica.*（接続プールは app.datasource.replica.hikari.* ）。プライマリとは別のプールを持つ
+ * JPA・Flyway などが使う DataSource は LazyConnectionDataSourceProxy で、
+ * 読み取り専用に設定された接続だけを ReadOnlyRoutingDataSource 経由でレプリカ（遅延が大きい場合はプライマリ）から取得する。
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:sa}") String username,
+            @Value("${app.datasource.replica.password:}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    public TaskReplicaSynchronizer taskReplicaSynchronizer(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${app.datasource.replica.max-lag:1s}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        return new TaskReplicaSynchronizer(primaryDataSource, replicaDataSource, maxLag, meterRegistry);
+    }
+
+    // アプリケーション（ JPA・Flyway など）が使う DataSource
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            TaskReplicaSynchronizer taskReplicaSynchronizer) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(new ReadOnlyRoutingDataSource(primaryDataSource, replicaDataSource,
+                taskReplicaSynchronizer::isWithinLagTolerance));
+        return dataSource;
+    }
+
+    @Bean
+    public PrimaryReadAspect primaryReadAspect() {
+        return new PrimaryReadAspect();
+    }
+}
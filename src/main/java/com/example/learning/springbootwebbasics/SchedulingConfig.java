@@ -0,0 +1,14 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+ * @Scheduled による定期実行を有効にする設定クラスです。
+ * スレッドプールの設定は application.properties の spring.task.scheduling.* で指定する。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
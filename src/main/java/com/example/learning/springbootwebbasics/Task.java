@@ -1,22 +1,30 @@
 package com.example.learning.springbootwebbasics;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity // このクラスが JPA エンティティであることを示す
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_completed_id", columnList = "completed, id"), // 完了状態で絞り込んだキーセットページング用
+        @Index(name = "idx_tasks_created_at", columnList = "created_at") // 作成日時での絞り込み・並び替え用
+})
 public class Task {
 
     @Id // 主キーであることを示す
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // ID がデータベースによって自動生成されることを示す
+    // ID はシーケンスから 50 件単位で払い出す（IDENTITY と異なり INSERT の JDBC バッチが可能になる）
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false) // このカラムが NULL を許容しないことを示す
@@ -94,15 +102,26 @@ public class Task {
         this.updatedAt = updatedAt;
     }
 
+    // 永続化コンテキストやキャッシュに影響を与えずに内容を加工するためのコピー（管理対象外のインスタンス）
+    public Task copy() {
+        Task copy = new Task(title, description, completed);
+        copy.id = id;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+
     // エンティティのライフサイクルコールバック（保存前／更新前に日時を自動設定）
+    // DB のカラム精度（マイクロ秒）に揃えて、メモリ上の値と DB の値から同じ ETag が算出されるようにする
     @PrePersist // エンティティが永続化される前に実行
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        this.createdAt = now;
+        this.updatedAt = now;
     }
 
     @PreUpdate // エンティティが更新される直前に実行
     protected void onUpdate() {
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
@@ -0,0 +1,75 @@
+package com.example.learning.springbootwebbasics;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+
+// 一括処理リクエストに含まれる 1 件分の操作を表す DTO
+public class TaskBatchOperation {
+
+    // 操作の種類
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    @NotNull(message = "操作の種類は必須です。")
+    private Type op;
+
+    private Long id; // UPDATE / DELETE の対象 ID
+
+    @Valid
+    private TaskRequest task; // CREATE / UPDATE の内容
+
+    // デフォルトコンストラクタ（JSON デシリアライズで必要）
+    public TaskBatchOperation() {
+    }
+
+    // コンストラクタ
+    public TaskBatchOperation(Type op, Long id, TaskRequest task) {
+        this.op = op;
+        this.id = id;
+        this.task = task;
+    }
+
+    // 操作の種類に応じて必要な項目が揃っているかを検証する
+    @JsonIgnore
+    @AssertTrue(message = "CREATE には task、UPDATE には id と task、DELETE には id が必要です。")
+    public boolean isWellFormed() {
+        if (op == null) {
+            return true; // @NotNull 側で検出する
+        }
+        return switch (op) {
+            case CREATE -> task != null;
+            case UPDATE -> id != null && task != null;
+            case DELETE -> id != null;
+        };
+    }
+
+    // --- Getter / Setter---
+
+    public Type getOp() {
+        return op;
+    }
+
+    public void setOp(Type op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TaskRequest getTask() {
+        return task;
+    }
+
+    public void setTask(TaskRequest task) {
+        this.task = task;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+// 一括処理（POST /api/tasks/batch）のリクエストボディをマッピングするための DTO
+public class TaskBatchRequest {
+
+    @NotEmpty(message = "操作は 1 件以上指定してください。")
+    @Size(max = 10000, message = "1 回のリクエストで指定できる操作は 10000 件までです。")
+    @Valid
+    private List<TaskBatchOperation> operations;
+
+    // デフォルトコンストラクタ（JSON デシリアライズで必要）
+    public TaskBatchRequest() {
+    }
+
+    // コンストラクタ
+    public TaskBatchRequest(List<TaskBatchOperation> operations) {
+        this.operations = operations;
+    }
+
+    // --- Getter / Setter---
+
+    public List<TaskBatchOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<TaskBatchOperation> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.learning.springbootwebbasics;
+
+/*
+ * 一括処理の 1 操作ごとの結果です。
+ * index はリクエスト内の操作の位置、id は作成・更新・削除されたタスクの ID。
+ */
+public record TaskBatchResult(int index, TaskBatchOperation.Type op, Long id, Status status) {
+
+    // 操作の結果
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND
+    }
+}
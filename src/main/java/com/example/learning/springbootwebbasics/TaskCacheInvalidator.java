@@ -0,0 +1,45 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+ * タスクの更新・削除をコミット後に ID 取得用のキャッシュから取り除くコンポーネントです。
+ * キャッシュミスした findTaskById が変更前の行を読み込み、更新側の @CachePut / @CacheEvict より後に
+ * 古い値をキャッシュに載せることがある（キャッシュのアドバイスはトランザクションより外側で動くため）。
+ * そのまま TTL（ spring.cache.caffeine.spec ）まで残らないよう、コミット時に加えて reevict-delay 後にもう一度取り除く。
+ * 古い値が残るのは reevict-delay まで（それより長くかかった読み取りの結果は、TTL まで残りうる）。
+ */
+@Component
+public class TaskCacheInvalidator {
+
+    private final Cache tasksCache;
+
+    private final TaskScheduler taskScheduler;
+
+    private final Duration reevictDelay;
+
+    public TaskCacheInvalidator(CacheManager cacheManager, TaskScheduler taskScheduler,
+            @Value("${app.tasks.cache.reevict-delay:1s}") Duration reevictDelay) {
+        this.tasksCache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+        this.taskScheduler = taskScheduler;
+        this.reevictDelay = reevictDelay;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.type() == TaskChangedEvent.Type.CREATED) {
+            return; // 作成前の状態はキャッシュに載らない
+        }
+        Long id = event.taskId();
+        tasksCache.evict(id);
+        taskScheduler.schedule(() -> tasksCache.evict(id), Instant.now().plus(reevictDelay));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.learning.springbootwebbasics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/*
+ * 起動完了時に、直近のタスクを ID 取得用のキャッシュ（ CacheConfig.TASKS_CACHE ）に読み込むコンポーネントです。
+ * 読み込む件数は app.tasks.cache.prewarm-size（ 0 の場合は読み込まない）。
+ */
+@Component
+public class TaskCachePrewarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskCachePrewarmer.class);
+
+    private final TaskService taskService;
+
+    private final int prewarmSize;
+
+    public TaskCachePrewarmer(TaskService taskService, @Value("${app.tasks.cache.prewarm-size:0}") int prewarmSize) {
+        this.taskService = taskService;
+        this.prewarmSize = prewarmSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (prewarmSize <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        int count = taskService.prewarmCache(prewarmSize);
+        logger.info("タスクキャッシュを事前に読み込みました。件数: {}, 所要時間: {} ms", count,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
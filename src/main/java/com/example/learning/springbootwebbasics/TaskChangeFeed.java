@@ -0,0 +1,226 @@
+package com.example.learning.springbootwebbasics;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+ * タスクの変更を Server-Sent Events で配信する変更フィードです。
+ * TaskChangedEvent（コミット後）ごとに通し番号を振り、直近 replay-size 件を再開用に保持する。
+ * 購読者ごとに上限付きのキュー（ subscriber-buffer 件）を持ち、送信は別スレッドで行う。
+ * 送信スレッドは共有の applicationTaskExecutor ではなく、変更フィード専用のプール（ send-threads 件）を使う。
+ * 送信が止まった購読者がいても、write-behind のフラッシュなど他の非同期処理のスレッドを占有しないようにするため。
+ * キューが溢れた（送信が追いつかない）購読者は切断し、メモリが増え続けないようにする。
+ */
+@Component
+public class TaskChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskChangeFeed.class);
+
+    // 再開位置が保持範囲より古い場合に送るイベント名（クライアントは一覧を取得し直す）
+    static final String RESET_EVENT = "reset";
+
+    // 購読者への送信専用のスレッドプール（購読者ごとに同時に実行する送信処理は 1 つだけ）
+    private final ThreadPoolTaskExecutor sendExecutor;
+
+    private final int replaySize;
+
+    private final int subscriberBuffer;
+
+    private final long timeoutMillis;
+
+    // 通し番号の採番・再開用バッファ・購読者の登録は、このロックの中で行う
+    private final Object lock = new Object();
+
+    private long lastSeq;
+
+    private final Queue<TaskChangeNotification> recent = new ArrayDeque<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public TaskChangeFeed(@Value("${app.tasks.changes.replay-size:1000}") int replaySize,
+            @Value("${app.tasks.changes.subscriber-buffer:256}") int subscriberBuffer,
+            @Value("${app.tasks.changes.timeout:30m}") Duration timeout,
+            @Value("${app.tasks.changes.send-threads:4}") int sendThreads) {
+        this.sendExecutor = new ThreadPoolTaskExecutor();
+        sendExecutor.setCorePoolSize(sendThreads);
+        sendExecutor.setMaxPoolSize(sendThreads);
+        sendExecutor.setThreadNamePrefix("task-changes-");
+        sendExecutor.initialize();
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /*
+     * 変更フィードを購読する。
+     * @param lastEventId 最後に受け取ったイベント ID（ null の場合は、これ以降の変更だけを配信する）
+     * @return 変更通知を送信する SseEmitter
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    // 指定した SseEmitter で購読する（テストで送信の遅い購読者を再現するため、パッケージプライベートにしている）
+    SseEmitter subscribe(SseEmitter emitter, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        synchronized (lock) {
+            try {
+                if (lastEventId != null) {
+                    replay(emitter, lastEventId);
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            subscribers.add(subscriber);
+        }
+        logger.info("変更フィードの購読を開始しました。購読者数: {}", subscribers.size());
+        return emitter;
+    }
+
+    // 再開位置より後の変更を送る（ハンドラーが戻る前の送信は SseEmitter がバッファし、接続確立後に書き出す）
+    private void replay(SseEmitter emitter, long lastEventId) throws IOException {
+        TaskChangeNotification oldest = recent.peek();
+        boolean gap = lastEventId > lastSeq // 再起動などで通し番号が巻き戻った
+                || (oldest != null && lastEventId < oldest.seq() - 1) // 保持範囲より古い
+                || (oldest == null && lastEventId < lastSeq);
+        if (gap) {
+            emitter.send(SseEmitter.event().id(String.valueOf(lastSeq)).name(RESET_EVENT).data(""));
+            return;
+        }
+        for (TaskChangeNotification notification : recent) {
+            if (notification.seq() > lastEventId) {
+                emitter.send(toEvent(notification));
+            }
+        }
+    }
+
+    // 購読者数
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // 最後に採番した通し番号
+    public long lastSeq() {
+        synchronized (lock) {
+            return lastSeq;
+        }
+    }
+
+    // タスクの変更をコミット後に全購読者へ配信する
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        synchronized (lock) {
+            TaskChangeNotification notification = new TaskChangeNotification(++lastSeq, event.type(), event.taskId(),
+                    event.task());
+            recent.add(notification);
+            if (recent.size() > replaySize) {
+                recent.poll();
+            }
+            Set<DataWithMediaType> sseEvent = toEvent(notification).build(); // 全購読者で共有する（ビルダーは再利用できない）
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(sseEvent);
+            }
+        }
+    }
+
+    // 接続の維持と切断の検出のため、定期的にコメント行を送る
+    @Scheduled(fixedDelayString = "${app.tasks.changes.heartbeat-interval:15s}")
+    public void heartbeat() {
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("heartbeat").build();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(comment);
+        }
+    }
+
+    // 停止時に全ての購読を終了する
+    // Web サーバーの graceful shutdown は処理中のリクエスト（ SSE の接続を含む）の終了を待つため、
+    // Bean の破棄（ @PreDestroy ）より前の ContextClosedEvent で接続を閉じる
+    @EventListener(ContextClosedEvent.class)
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        sendExecutor.shutdown();
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(TaskChangeNotification notification) {
+        return SseEmitter.event()
+                .id(String.valueOf(notification.seq()))
+                .name(notification.type().name().toLowerCase())
+                .data(notification, MediaType.APPLICATION_JSON);
+    }
+
+    // 購読者 1 件分の送信キュー
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+
+        // 送信処理が実行中かどうか（購読者ごとに送信スレッドは 1 つだけ）
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(Set<DataWithMediaType> event) {
+            if (!queue.offer(event)) {
+                // 送信が追いつかない購読者は切断する（クライアントは Last-Event-ID で再開できる）
+                logger.warn("変更フィードの購読者の送信キューが溢れたため切断します。");
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // クライアントが切断済み
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // 送信終了の直前に追加されたイベントを取りこぼさない
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+    }
+}
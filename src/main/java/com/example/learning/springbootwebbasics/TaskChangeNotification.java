@@ -0,0 +1,9 @@
+package com.example.learning.springbootwebbasics;
+
+/*
+ * 変更フィード（ GET /api/tasks/changes ）で配信する 1 件の変更通知です。
+ * seq はアプリケーション起動後の通し番号で、SSE のイベント ID（ Last-Event-ID での再開位置）として使われる。
+ * task は変更後のタスク。削除の場合や、部分更新で変更後の状態を読み込んでいない場合は null になる。
+ */
+public record TaskChangeNotification(long seq, TaskChangedEvent.Type type, Long taskId, Task task) {
+}
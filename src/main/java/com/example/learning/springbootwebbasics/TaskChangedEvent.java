@@ -0,0 +1,48 @@
+package com.example.learning.springbootwebbasics;
+
+/*
+ * タスクが作成・更新・削除されたことを通知するアプリケーションイベントです。
+ * TaskService がトランザクション内で発行し、リスナーは @TransactionalEventListener でコミット後に受け取る。
+ * task は変更後の状態。削除の場合や、部分更新（ PATCH ）のように変更後の状態を読み込んでいない場合は null になる。
+ * completed は変更後の完了状態（ task がある場合は task と同じ値）。
+ * previouslyCompleted は更新・削除前の完了状態。変更前の状態が分からない場合（作成時を含む）は null になる。
+ * 部分更新で completed と previouslyCompleted が両方 null の場合は、完了状態を変更していない。
+ */
+public record TaskChangedEvent(Type type, Long taskId, Task task, Boolean completed, Boolean previouslyCompleted) {
+
+    // 変更の種類
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static TaskChangedEvent created(Task task) {
+        return new TaskChangedEvent(Type.CREATED, task.getId(), task, task.isCompleted(), null);
+    }
+
+    public static TaskChangedEvent updated(Task task, boolean previouslyCompleted) {
+        return new TaskChangedEvent(Type.UPDATED, task.getId(), task, task.isCompleted(), previouslyCompleted);
+    }
+
+    // 完了状態を変更しない部分更新のイベント
+    public static TaskChangedEvent updated(Long taskId) {
+        return new TaskChangedEvent(Type.UPDATED, taskId, null, null, null);
+    }
+
+    // 完了状態を変更する部分更新のイベント（変更前の完了状態が分からない場合、previouslyCompleted は null ）
+    public static TaskChangedEvent patched(Long taskId, boolean completed, Boolean previouslyCompleted) {
+        return new TaskChangedEvent(Type.UPDATED, taskId, null, completed, previouslyCompleted);
+    }
+
+    // 削除前の状態が分からない削除イベント
+    public static TaskChangedEvent deleted(Long taskId) {
+        return new TaskChangedEvent(Type.DELETED, taskId, null, null, null);
+    }
+
+    public static TaskChangedEvent deleted(Long taskId, boolean previouslyCompleted) {
+        return new TaskChangedEvent(Type.DELETED, taskId, null, null, previouslyCompleted);
+    }
+
+    public static TaskChangedEvent deleted(Task task) {
+        return deleted(task.getId(), task.isCompleted());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * タスク API の同時実行数を制限し、上限を超えたリクエストをすぐに 503 で拒否するインターセプターです。
+ * H2 やコネクションプールが詰まったときに、リクエストが Tomcat 内で待ち続けてレイテンシが際限なく伸びるのを防ぐ。
+ * 上限は読み取り（ GET / HEAD と POST /api/tasks/lookup ）と書き込み（それ以外）で別々に持ち、
+ * それぞれリクエストの処理時間（ TaskService の呼び出しを含む）から AIMD で調整する。
+ * 拒否時は TaskOverloadedException を投げ、GlobalExceptionHandler が Retry-After 付きの ProblemDetail に変換する。
+ * 登録先のパスは WebConfig で指定する（変更フィード・エクスポート・一括操作のように、常に長くかかるリクエストは対象外）。
+ */
+@Component
+public class TaskConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    // 実行枠の確保時刻を保持するリクエスト属性
+    private static final String START_ATTRIBUTE = TaskConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    // 確保した実行枠のリミッターを保持するリクエスト属性
+    private static final String LIMITER_ATTRIBUTE = TaskConcurrencyLimitInterceptor.class.getName() + ".limiter";
+
+    // 読み取りとして扱う POST のパス（リクエストボディで検索条件を受け取るだけの API ）
+    private static final Set<String> READ_ONLY_POST_PATHS = Set.of("/api/tasks/lookup");
+
+    private final AimdConcurrencyLimiter readLimiter;
+
+    private final AimdConcurrencyLimiter writeLimiter;
+
+    private final Duration retryAfter;
+
+    public TaskConcurrencyLimitInterceptor(MeterRegistry meterRegistry,
+            @Value("${app.tasks.concurrency.read.initial-limit:50}") int readInitialLimit,
+            @Value("${app.tasks.concurrency.read.min-limit:4}") int readMinLimit,
+            @Value("${app.tasks.concurrency.read.max-limit:200}") int readMaxLimit,
+            @Value("${app.tasks.concurrency.read.latency-threshold:100ms}") Duration readLatencyThreshold,
+            @Value("${app.tasks.concurrency.write.initial-limit:10}") int writeInitialLimit,
+            @Value("${app.tasks.concurrency.write.min-limit:2}") int writeMinLimit,
+            @Value("${app.tasks.concurrency.write.max-limit:50}") int writeMaxLimit,
+            @Value("${app.tasks.concurrency.write.latency-threshold:250ms}") Duration writeLatencyThreshold,
+            @Value("${app.tasks.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.tasks.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.readLimiter = new AimdConcurrencyLimiter(readInitialLimit, readMinLimit, readMaxLimit, readLatencyThreshold, backoffRatio);
+        this.writeLimiter = new AimdConcurrencyLimiter(writeInitialLimit, writeMinLimit, writeMaxLimit, writeLatencyThreshold, backoffRatio);
+        this.retryAfter = retryAfter;
+        registerGauges(meterRegistry, "read", readLimiter);
+        registerGauges(meterRegistry, "write", writeLimiter);
+    }
+
+    // 現在の上限と実行中のリクエスト数をメトリクスとして公開する
+    private static void registerGauges(MeterRegistry meterRegistry, String budget, AimdConcurrencyLimiter limiter) {
+        Gauge.builder("tasks.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .description("タスク API の同時実行数の上限")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("tasks.concurrency.in-flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .description("タスク API で実行中のリクエスト数")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 非同期処理の再ディスパッチでは、最初のディスパッチで確保した実行枠をそのまま使う
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        AimdConcurrencyLimiter limiter = isRead(request) ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            throw new TaskOverloadedException("The server is busy. Please retry later.", retryAfter);
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LIMITER_ATTRIBUTE) instanceof AimdConcurrencyLimiter limiter
+                && request.getAttribute(START_ATTRIBUTE) instanceof Long startNanos) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            limiter.release(startNanos);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return true;
+        }
+        return HttpMethod.POST.matches(method) && READ_ONLY_POST_PATHS.contains(request.getRequestURI());
+    }
+
+    // 読み取りの同時実行数のリミッター
+    public AimdConcurrencyLimiter getReadLimiter() {
+        return readLimiter;
+    }
+
+    // 書き込みの同時実行数のリミッター
+    public AimdConcurrencyLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.learning.springbootwebbasics;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -30,54 +46,278 @@ public class TaskController {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
 
+    // 一覧取得の 1 ページあたりの最大件数
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // エクスポート時にレスポンスをフラッシュする間隔（件数）
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    // GET で一度に指定できる ID の最大数（それ以上は POST /lookup を使う）
+    private static final int MAX_GET_IDS = 200;
+
+    // 検索結果の最大件数
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    // タスク作成の再送を識別するリクエストヘッダー
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    // 保持していた結果の再送かどうかを示すレスポンスヘッダー
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final TaskService taskService;
 
-    public TaskController(TaskService taskService) {
+    private final TaskSearchIndex taskSearchIndex;
+
+    private final TaskStatistics taskStatistics;
+
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
+    private final TaskChangeFeed taskChangeFeed;
+
+    private final ObjectMapper objectMapper;
+
+    public TaskController(TaskService taskService, TaskSearchIndex taskSearchIndex, TaskStatistics taskStatistics,
+            IdempotencyKeyStore idempotencyKeyStore, TaskChangeFeed taskChangeFeed, ObjectMapper objectMapper) {
         this.taskService = taskService;
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskStatistics = taskStatistics;
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.taskChangeFeed = taskChangeFeed;
+        this.objectMapper = objectMapper;
     }
 
-    // 全てのタスクを取得
+    // タスク一覧をキーセットページネーションで取得
     @GetMapping
-    @Operation(summary = "全タスクの取得", description = "データベースに保存されている全てのタスクを取得します。")
+    @Operation(summary = "タスク一覧の取得", description = "タスクを ID 昇順でページ単位に取得します。次ページはレスポンスの next をカーソルとして指定します。")
     @ApiResponse(responseCode = "200", description = "タスク一覧を正常に取得しました。")
-    public ResponseEntity<List<Task>> getAllTasks() {
-        logger.info("全タスク取得リクエストを受信しました。");
-        List<Task> tasks = taskService.findAll();
-        logger.info("取得したリクエスト数: {}", tasks.size());
-        return ResponseEntity.ok(tasks);
+    @ApiResponse(responseCode = "304", description = "If-None-Match の ETag から変更がありません。")
+    @ApiResponse(responseCode = "400", description = "カーソルまたは件数の指定が不正です。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<TaskPage<Task>> getAllTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Boolean completed) {
+        logger.debug("タスク一覧取得リクエストを受信しました。limit: {}, completed: {}", limit, completed);
+        validatePageSize(limit);
+        TaskPage<Task> page = taskService.findPage(decodeCursor(cursor), limit, completed);
+        logger.debug("取得したタスク数: {}", page.items().size());
+        // If-None-Match が ETag と一致する場合、Spring がボディをシリアライズせずに 304 を返す
+        // Accept により JSON / CBOR / Smile のいずれかで返すため、キャッシュが表現ごとに保持するよう Vary を付ける
+        return ResponseEntity.ok().eTag(TaskETags.of(page)).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    // タスクの要約一覧をキーセットページネーションで取得
+    @GetMapping("/summaries")
+    @Operation(summary = "タスク要約一覧の取得", description = "タスクの ID・タイトル・完了状態・更新日時だけを ID 昇順でページ単位に取得します。説明を含まないため、一覧表示ではタスク一覧の取得より軽量です。カーソルはタスク一覧と共通です。")
+    @ApiResponse(responseCode = "200", description = "タスク要約一覧を正常に取得しました。")
+    @ApiResponse(responseCode = "304", description = "If-None-Match の ETag から変更がありません。")
+    @ApiResponse(responseCode = "400", description = "カーソルまたは件数の指定が不正です。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<TaskPage<TaskSummary>> getTaskSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Boolean completed) {
+        logger.debug("タスク要約一覧取得リクエストを受信しました。limit: {}, completed: {}", limit, completed);
+        validatePageSize(limit);
+        TaskPage<TaskSummary> page = taskService.findSummaryPage(decodeCursor(cursor), limit, completed);
+        logger.debug("取得したタスク数: {}", page.items().size());
+        return ResponseEntity.ok().eTag(TaskETags.ofSummaries(page)).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    // 1 ページあたりの件数が範囲内か検証する
+    private static void validatePageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidTaskRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // カーソルを ID に変換する（未指定の場合は先頭ページ）
+    private static long decodeCursor(String cursor) {
+        if (cursor == null) {
+            return 0L;
+        }
+        try {
+            return TaskCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // 複数の ID でタスクをまとめて取得
+    @GetMapping(params = "ids")
+    @Operation(summary = "複数タスクの取得", description = "カンマ区切りで指定された複数の ID のタスクを、1 回の問い合わせでまとめて取得します。結果は指定順に並び、見つからなかった ID は missing に含まれます。")
+    @ApiResponse(responseCode = "200", description = "タスクを正常に取得しました。")
+    @ApiResponse(responseCode = "400", description = "ID の指定が不正です。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<TaskLookupResult> getTasksByIds(@RequestParam List<Long> ids) {
+        logger.debug("複数タスク取得リクエストを受信しました。ID 数: {}", ids.size());
+        if (ids.isEmpty() || ids.size() > MAX_GET_IDS) {
+            throw new InvalidTaskRequestException(
+                    "ids must contain between 1 and " + MAX_GET_IDS + " IDs; use POST /api/tasks/lookup for more");
+        }
+        return ResponseEntity.ok(lookupTasks(ids));
+    }
+
+    // 複数の ID でタスクをまとめて取得（ ID が多い場合の POST 版）
+    @PostMapping("/lookup")
+    @Operation(summary = "複数タスクの取得（ POST ）", description = "リクエストボディで指定された複数の ID のタスクをまとめて取得します。URL に収まらない数の ID を指定する場合に使用します。")
+    @ApiResponse(responseCode = "200", description = "タスクを正常に取得しました。")
+    @ApiResponse(responseCode = "400", description = "リクエストの形式が不正です。入力内容を確認してください。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<TaskLookupResult> lookupTasks(@RequestBody @Valid TaskLookupRequest lookupRequest) {
+        logger.debug("複数タスク取得リクエスト（ POST ）を受信しました。ID 数: {}", lookupRequest.getIds().size());
+        return ResponseEntity.ok(lookupTasks(lookupRequest.getIds()));
+    }
+
+    private TaskLookupResult lookupTasks(List<Long> ids) {
+        TaskLookupResult result = taskService.findTasksByIds(ids);
+        logger.debug("取得したタスク数: {}, 見つからなかった ID 数: {}", result.tasks().size(), result.missing().size());
+        return result;
+    }
+
+    // 全タスクを NDJSON 形式でストリーミング出力
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "全タスクのエクスポート", description = "全てのタスクを 1 行 1 タスクの NDJSON 形式で出力します。読み込んだ順にレスポンスへ書き出すため、件数が多くてもメモリを消費しません。")
+    @ApiResponse(responseCode = "200", description = "タスクを正常にエクスポートしました。")
+    public void exportTasks(HttpServletResponse response) throws IOException {
+        logger.info("タスクエクスポートリクエストを受信しました。");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        // レスポンスの OutputStream はコンテナが閉じるため、ジェネレーターからは閉じない
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            long[] written = {0};
+            long count = taskService.exportAll(task -> {
+                try {
+                    generator.writeObject(task);
+                    generator.writeRaw('\n');
+                    if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                        generator.flush(); // 一定件数ごとにクライアントへ送信する
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("エクスポートしたタスク数: {}", count);
+        }
+    }
+
+    // タイトル・説明の全文検索
+    @GetMapping("/search")
+    @Operation(summary = "タスクの全文検索", description = "タイトルと説明にキーワードを含むタスクのうち、関連度の高い最大 limit 件を ID の昇順（ sort=asc、既定）または降順（ sort=desc ）で返します。sort=relevance を指定すると関連度の高い順に返します。")
+    @ApiResponse(responseCode = "200", description = "検索結果を正常に取得しました。")
+    @ApiResponse(responseCode = "400", description = "件数または並び順の指定が不正です。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<List<TaskSearchHit>> searchTasks(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "asc") String sort) {
+        logger.debug("タスク検索リクエストを受信しました。キーワード: {}, limit: {}, sort: {}", keyword, limit, sort);
+        int maxHits = (limit != null) ? limit : 20;
+        if (maxHits < 1 || maxHits > MAX_SEARCH_LIMIT) {
+            throw new InvalidTaskRequestException("limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        List<TaskSearchHit> hits = taskSearchIndex.search(keyword, maxHits);
+        switch (sort) {
+            case "asc" -> hits.sort(Comparator.comparing(TaskSearchHit::id));
+            case "desc" -> hits.sort(Comparator.comparing(TaskSearchHit::id).reversed());
+            case "relevance" -> {
+                // 関連度の降順（検索結果のまま）
+            }
+            default -> throw new InvalidTaskRequestException("sort must be one of asc, desc, relevance");
+        }
+        logger.debug("検索結果数: {}", hits.size());
+        return ResponseEntity.ok(hits);
+    }
+
+    // タスクの変更を Server-Sent Events で購読
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "タスク変更フィードの購読", description = "タスクの作成・更新・削除を、コミット後に Server-Sent Events（ created / updated / deleted ）で配信します。接続が切れた場合は Last-Event-ID ヘッダーで続きから再開できます。再開位置が保持範囲外の場合は reset イベントを送るので、一覧を取得し直してください。")
+    @ApiResponse(responseCode = "200", description = "変更フィードの購読を開始しました。")
+    public SseEmitter streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        logger.info("タスク変更フィードの購読リクエストを受信しました。Last-Event-ID: {}", lastEventId);
+        return taskChangeFeed.subscribe(lastEventId);
+    }
+
+    // タスクの統計を取得
+    @GetMapping("/stats")
+    @Operation(summary = "タスク統計の取得", description = "タスクの全件数・完了済み・未完了の件数と、直近 1 分 / 1 時間の作成件数を返します。件数はメモリ上のカウンタから返し、定期的に DB と突き合わせます。")
+    @ApiResponse(responseCode = "200", description = "タスク統計を正常に取得しました。")
+    public ResponseEntity<TaskStats> getTaskStats() {
+        return ResponseEntity.ok(taskStatistics.snapshot());
     }
 
     // ID でタスクを取得
     @GetMapping("/{id}")
     @Operation(summary = "特定のタスクの取得", description = "指定されたIDに一致するタスクを取得します。")
     @ApiResponse(responseCode = "200", description = "指定されたIDのタスクを正常に取得しました。")
+    @ApiResponse(responseCode = "304", description = "If-None-Match の ETag から変更がありません。")
     @ApiResponse(responseCode = "400", description = "指定されたIDのタスクが見つかりませんでした。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
-        logger.info("ID: {} のタスク取得リクエストを受信しました。", id);
+    public ResponseEntity<Task> getTaskById(@PathVariable Long id, WebRequest webRequest) {
+        logger.debug("ID: {} のタスク取得リクエストを受信しました。", id);
+        // 条件付き GET：更新日時だけを取得して ETag を比較し、一致すればエンティティを読み込まずに 304 を返す
+        if (webRequest.getHeader("If-None-Match") != null) {
+            Optional<LocalDateTime> version = taskService.findTaskVersion(id);
+            if (version.isPresent()) {
+                String etag = TaskETags.of(id, version.get());
+                if (webRequest.checkNotModified(etag)) {
+                    logger.debug("ID: {} のタスクに変更はありません。", id);
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+                }
+            }
+        }
         // ResponseEntity.notFound().build() は 404 Not Content を返す
         return taskService.findTaskById(id)
                 .map(task -> {
                     logger.debug("ID: {} タスクが見つかりました。", id);
-                    return ResponseEntity.ok(task);
+                    return ResponseEntity.ok().eTag(TaskETags.of(task)).varyBy(HttpHeaders.ACCEPT).body(task);
                 })
                 .orElseThrow(() -> {
                     logger.warn("ID: {} のタスクが見つかりませんでした。", id);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Task with ID " + id + " not found");
+                    return new TaskNotFoundException(id, "Task with ID " + id + " not found");
                 });
     }
 
     // 新しいタスクを作成
     @PostMapping
-    @Operation(summary = "新しいタスクの作成", description = "新しいタスクをデータベースに追加します。")
-    @ApiResponse(responseCode = "201", description = "タスクを正常に作成しました。")
+    @Operation(summary = "新しいタスクの作成", description = "新しいタスクをデータベースに追加します。Idempotency-Key ヘッダーを指定すると、同じキーの再送では最初に作成したタスクを返し、タスクを重複して作成しません。")
+    @ApiResponse(responseCode = "201", description = "タスクを正常に作成しました。再送の場合は Idempotent-Replayed: true ヘッダーを付けて最初の結果を返します。")
     @ApiResponse(responseCode = "400", description = "リクエストの形式が不正です。入力内容を確認してください。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
-    public ResponseEntity<Task> createTask(@RequestBody @Valid TaskRequest taskRequest) {
+    @ApiResponse(responseCode = "422", description = "Idempotency-Key が別の内容のリクエストで使用済みです。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<Task> createTask(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid TaskRequest taskRequest) {
         logger.info("新しいタスク作成リクエストを受信しました。タイトル: {}", taskRequest.getTitle());
+        if (idempotencyKey == null) {
+            Task savedTask = saveNewTask(taskRequest);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(TaskETags.of(savedTask)).body(savedTask);
+        }
+        IdempotencyKeyStore.Outcome outcome = idempotencyKeyStore.createOnce(idempotencyKey, taskRequest,
+                () -> saveNewTask(taskRequest));
+        if (outcome.replayed()) {
+            logger.info("Idempotency-Key: {} の再送のため、作成済みのタスク ID: {} を返します。", idempotencyKey, outcome.task().getId());
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(TaskETags.of(outcome.task()))
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
+                .body(outcome.task());
+    }
+
+    private Task saveNewTask(TaskRequest taskRequest) {
         // TaskRequest から Task エンティティを作成
         Task newTask = new Task(taskRequest.getTitle(), taskRequest.getDescription(), taskRequest.isCompleted());
         Task savedTask = taskService.createTask(newTask);
         logger.info("新しいタスクがID: {} として保存されました。", savedTask.getId());
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedTask);
+        return savedTask;
+    }
+
+    // タスクを一括で作成・更新・削除
+    @PostMapping("/batch")
+    @Operation(summary = "タスクの一括操作", description = "複数の作成・更新・削除操作をまとめて実行します。操作は一定件数ごとのトランザクションでコミットされます。")
+    @ApiResponse(responseCode = "200", description = "一括操作を実行しました。操作ごとの結果を返します。")
+    @ApiResponse(responseCode = "400", description = "リクエストの形式が不正です。入力内容を確認してください。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<List<TaskBatchResult>> applyBatch(@RequestBody @Valid TaskBatchRequest batchRequest) {
+        logger.info("タスク一括操作リクエストを受信しました。操作数: {}", batchRequest.getOperations().size());
+        List<TaskBatchResult> results = taskService.applyBatch(batchRequest.getOperations());
+        logger.info("タスク一括操作が完了しました。操作数: {}", results.size());
+        return ResponseEntity.ok(results);
     }
 
     // タスクを更新
@@ -88,15 +328,40 @@ public class TaskController {
     @ApiResponse(responseCode = "400", description = "リクエストの形式が不正です。入力内容を確認してください。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
     public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody @Valid TaskRequest taskRequest) {
         logger.info("ID: {} のタスク更新リクエストを受信しました。", id);
-        return taskService.udateTask(id, taskRequest)
+        // write-behind モードでは DB に書き込まず、バッファに追加した時点で応答する
+        Optional<Task> updatedTask = taskService.isWriteBehindEnabled()
+                ? taskService.bufferUpdate(id, taskRequest)
+                : taskService.udateTask(id, taskRequest);
+        return updatedTask
                 .map(task -> {
                     logger.info("ID: {} のタスクが正常に更新されました。", id);
-                    return ResponseEntity.ok(task);
+                    return ResponseEntity.ok().eTag(TaskETags.of(task)).varyBy(HttpHeaders.ACCEPT).body(task);
                 })
                 .orElseThrow(() -> {
                     logger.warn("ID: {} のタスクが見つかりませんでした。更新をキャンセルします。");
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND,
-                            "Task with ID " + id + " not found for update");
+                    return new TaskNotFoundException(id, "Task with ID " + id + " not found for update");
+                });
+    }
+
+    // タスクを部分更新
+    @PatchMapping("/{id}")
+    @Operation(summary = "タスクの部分更新", description = "指定されたIDのタスクのうち、リクエストで指定された項目だけを更新します。タスクを読み込まずに 1 回の UPDATE で更新するため、レスポンスボディは返しません。")
+    @ApiResponse(responseCode = "204", description = "タスクを正常に更新しました。ETag ヘッダーに更新後のバージョンを返します。")
+    @ApiResponse(responseCode = "404", description = "指定されたIDのタスクが見つからず、更新できませんでした。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    @ApiResponse(responseCode = "400", description = "リクエストの形式が不正です。入力内容を確認してください。", content = @Content(schema = @Schema(implementation = org.springframework.http.ProblemDetail.class)))
+    public ResponseEntity<Void> patchTask(@PathVariable Long id, @RequestBody @Valid TaskPatchRequest patchRequest) {
+        logger.info("ID: {} のタスク部分更新リクエストを受信しました。", id);
+        Optional<LocalDateTime> patchedAt = taskService.isWriteBehindEnabled()
+                ? taskService.bufferPatch(id, patchRequest)
+                : taskService.patchTask(id, patchRequest);
+        return patchedAt
+                .map(updatedAt -> {
+                    logger.info("ID: {} のタスクが正常に部分更新されました。", id);
+                    return ResponseEntity.noContent().eTag(TaskETags.of(id, updatedAt)).<Void>build();
+                })
+                .orElseThrow(() -> {
+                    logger.warn("ID: {} のタスクが見つかりませんでした。部分更新をキャンセルします。", id);
+                    return new TaskNotFoundException(id, "Task with ID " + id + " not found for update");
                 });
     }
 
@@ -109,11 +374,11 @@ public class TaskController {
         logger.info("ID: {} のタスク削除リクエストを受信しました。", id);
         // 204 No Content
         if (taskService.deleteTask(id)) {
-            logger.info("ID: {} のタスクが正常に削除されました。");
+            logger.info("ID: {} のタスクが正常に削除されました。", id);
             return ResponseEntity.noContent().build();
         }
         // 404 Not Found
         logger.warn("ID: {} のタスクが見つかりませんでした。削除をキャンセルします。", id);
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Task with ID " + id + " not found for deletion");
+        throw new TaskNotFoundException(id, "Task with ID " + id + " not found for deletion");
     }
 }
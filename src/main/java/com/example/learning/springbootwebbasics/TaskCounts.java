@@ -0,0 +1,5 @@
+package com.example.learning.springbootwebbasics;
+
+// 集計クエリで取得したタスクの件数（全件数と完了済みの件数）
+public record TaskCounts(long total, long completed) {
+}
@@ -0,0 +1,30 @@
+package com.example.learning.springbootwebbasics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * キーセットページネーション用のカーソルをエンコード／デコードするユーティリティです。
+ * クライアントには最後に返したタスクの ID を不透明な文字列として渡す。
+ */
+public final class TaskCursor {
+
+    private TaskCursor() {
+    }
+
+    // 最後に返したタスクの ID をカーソル文字列に変換する
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // カーソル文字列から ID を復元する（不正な形式の場合は IllegalArgumentException）
+    public static long decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        long lastId = Long.parseLong(decoded); // NumberFormatException は IllegalArgumentException のサブクラス
+        if (lastId < 0) {
+            throw new IllegalArgumentException("Negative cursor: " + lastId);
+        }
+        return lastId;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/*
+ * タスクの ETag を組み立てるユーティリティです。
+ * ID と更新日時（ updatedAt ）から算出するため、エンティティ全体を読み込まなくても比較できる。
+ * 単一タスク・一覧のページとも弱い ETag（ W/ ）にする。
+ * 同じタスクを JSON / CBOR / Smile（ Accept で選択）や圧縮の有無によってバイト列の異なる表現で返すため、
+ * 表現ごとに値を変える必要のある強い ETag ではなく、「同じ内容」を表す弱い ETag を使う（ If-None-Match は弱い比較で判定される）。
+ * また、Tomcat は強い ETag を持つレスポンスを gzip 圧縮しないため、サイズの大きい一覧も圧縮の対象になる。
+ */
+public final class TaskETags {
+
+    private TaskETags() {
+    }
+
+    // 単一タスクの ETag（例：W/"12-5f1c3a2b4d9e0"）
+    public static String of(Task task) {
+        return of(task.getId(), task.getUpdatedAt());
+    }
+
+    // ID と更新日時から ETag を算出する
+    public static String of(Long id, LocalDateTime updatedAt) {
+        return "W/\"" + id + "-" + Long.toHexString(toEpochMicros(updatedAt)) + "\"";
+    }
+
+    // タスク一覧の 1 ページ分の ETag（含まれる全タスクの ID と更新日時、次ページのカーソルから算出する）
+    public static String of(TaskPage<Task> page) {
+        long hash = 17;
+        for (Task task : page.items()) {
+            hash = 31 * hash + task.getId();
+            hash = 31 * hash + toEpochMicros(task.getUpdatedAt());
+        }
+        return ofPage("p", page, hash);
+    }
+
+    // 要約一覧の 1 ページ分の ETag（表現が異なるため、同じタスクでもタスク一覧とは別の値になる）
+    public static String ofSummaries(TaskPage<TaskSummary> page) {
+        long hash = 17;
+        for (TaskSummary summary : page.items()) {
+            hash = 31 * hash + summary.id();
+            hash = 31 * hash + toEpochMicros(summary.updatedAt());
+        }
+        return ofPage("s", page, hash);
+    }
+
+    private static String ofPage(String prefix, TaskPage<?> page, long itemsHash) {
+        long hash = itemsHash;
+        if (page.next() != null) {
+            hash = 31 * hash + page.next().hashCode();
+        }
+        return "W/\"" + prefix + page.items().size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), dateTime);
+    }
+}
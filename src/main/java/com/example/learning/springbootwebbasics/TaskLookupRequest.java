@@ -0,0 +1,34 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+// 複数 ID でのタスク取得（ POST /api/tasks/lookup ）のリクエストボディをマッピングするための DTO
+public class TaskLookupRequest {
+
+    @NotEmpty(message = "ID は 1 件以上指定してください。")
+    @Size(max = 10000, message = "1 回のリクエストで指定できる ID は 10000 件までです。")
+    private List<@NotNull(message = "ID に null は指定できません。") Long> ids;
+
+    // デフォルトコンストラクタ（JSON デシリアライズで必要）
+    public TaskLookupRequest() {
+    }
+
+    // コンストラクタ
+    public TaskLookupRequest(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    // --- Getter / Setter---
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.List;
+
+/*
+ * 複数 ID でのタスク取得結果です。
+ * tasks はリクエストで指定された ID の順（重複は最初の 1 件のみ）、missing は見つからなかった ID。
+ */
+public record TaskLookupResult(List<Task> tasks, List<Long> missing) {
+}
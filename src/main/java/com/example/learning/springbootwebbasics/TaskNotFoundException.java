@@ -0,0 +1,29 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/*
+ * 指定された ID のタスクが存在しないことを表す例外です（ 404 Not Found ）。
+ * 想定内のエラーで頻繁に発生し得るため、スタックトレースを取得しない。
+ * GlobalExceptionHandler では ResponseStatusException として処理される。
+ */
+public class TaskNotFoundException extends ResponseStatusException {
+
+    private final Long taskId;
+
+    public TaskNotFoundException(Long taskId, String reason) {
+        super(HttpStatus.NOT_FOUND, reason);
+        this.taskId = taskId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    // スタックトレースを取得しない（例外生成のコストの大半を占めるため）
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/*
+ * 同時実行数の上限に達したため、リクエストを処理せずに拒否したことを表す例外です（ 503 Service Unavailable ）。
+ * 過負荷時に大量に発生するため、スタックトレースを取得しない。
+ * GlobalExceptionHandler で Retry-After ヘッダー付きのレスポンスに変換される。
+ */
+public class TaskOverloadedException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public TaskOverloadedException(String reason, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    // スタックトレースを取得しない（例外生成のコストの大半を占めるため）
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.List;
+
+/*
+ * タスク一覧の 1 ページ分のレスポンスです。
+ * items はタスク（ Task ）または要約（ TaskSummary ）。
+ * next は次ページ取得用のカーソルで、最終ページの場合は null になる。
+ */
+public record TaskPage<T>(List<T> items, String next) {
+}
@@ -0,0 +1,64 @@
+package com.example.learning.springbootwebbasics;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+// 部分更新（ PATCH ）のリクエストボディをマッピングするための DTO。null の項目は変更しない
+public class TaskPatchRequest {
+
+    @Size(min = 3, max = 50, message = "タイトルは100文字以内で入力してください。")
+    @Pattern(regexp = ".*\\S.*", message = "タイトルは必須です。")
+    private String title;
+
+    @Size(max = 200, message = "説明は500文字以内で入力してください。")
+    private String description;
+
+    private Boolean completed;
+
+    // デフォルトコンストラクタ（JSON デシリアライズで必要）
+    public TaskPatchRequest() {
+    }
+
+    // コンストラクタ
+    public TaskPatchRequest(String title, String description, Boolean completed) {
+        this.title = title;
+        this.description = description;
+        this.completed = completed;
+    }
+
+    // 少なくとも 1 項目が指定されていることを検証する
+    @JsonIgnore
+    @AssertTrue(message = "更新する項目を 1 つ以上指定してください。")
+    public boolean isAnyFieldPresent() {
+        return title != null || description != null || completed != null;
+    }
+
+    // --- Getter / Setter---
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * ローカル環境でレプリカの代わりに使う H2 に、プライマリの tasks テーブルのスナップショットを定期的に複製するコンポーネントです。
+ * レプリカのスキーマはプライマリと同じ Flyway のマイグレーションで作成する。
+ * 複製は 1 トランザクションで全行を入れ替えるため、レプリカを読むトランザクションから途中の状態は見えない。
+ *
+ * あわせてレプリカの遅延（まだ複製していない最も古い変更からの経過時間）を管理する。
+ * 変更は TaskChangedEvent（コミット後）で検知するため、TaskService を経由しない変更は次の同期まで検知しない。
+ * 変更がなければ同期をスキップする。
+ */
+public class TaskReplicaSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskReplicaSynchronizer.class);
+
+    private static final String SELECT_TASKS = "SELECT id, title, description, completed, created_at, updated_at FROM tasks";
+
+    private static final String INSERT_TASK = "INSERT INTO tasks (id, title, description, completed, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // レプリカへの INSERT をまとめて送る件数
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate primaryJdbcTemplate;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+
+    private final TransactionTemplate replicaTransactionTemplate;
+
+    private final long maxLagNanos;
+
+    // 遅延の状態を更新するためのロック（読み取りは volatile のフィールドをロックなしで参照する）
+    private final Object lagLock = new Object();
+
+    // 変更を検知した回数（同期中に変更があったかの判定用）
+    private long changeCount;
+
+    // 1 回以上同期したかどうか
+    private volatile boolean synced;
+
+    // まだ複製していない変更があるかどうかと、その最も古い変更の検知時刻（ System.nanoTime ）
+    private volatile boolean pending;
+
+    private volatile long pendingSinceNanos;
+
+    public TaskReplicaSynchronizer(DataSource primaryDataSource, DataSource replicaDataSource, Duration maxLag,
+            MeterRegistry meterRegistry) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(replicaDataSource));
+        this.maxLagNanos = maxLag.toNanos();
+        Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        Gauge.builder("tasks.replica.lag", this, synchronizer -> synchronizer.synced ? synchronizer.lagNanos() / 1e9 : Double.NaN)
+                .description("レプリカの遅延（まだ同期していない場合は NaN ）")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // タスクの変更をコミット後に検知し、次の同期の対象にする
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        synchronized (lagLock) {
+            changeCount++;
+            if (!pending) {
+                pendingSinceNanos = System.nanoTime();
+                pending = true;
+            }
+        }
+    }
+
+    // 一定間隔でレプリカを同期する（初回は起動直後）
+    @Scheduled(fixedDelayString = "${app.datasource.replica.sync-interval:500ms}")
+    public void syncPeriodically() {
+        sync();
+    }
+
+    /*
+     * プライマリの tasks テーブルをレプリカに複製する。
+     * 複製中に変更があった場合は、複製に含まれたか分からないため、複製の開始時刻から遅延しているものとして扱う。
+     * @return 複製した行数（同期が不要だった場合は -1 ）
+     */
+    public synchronized int sync() {
+        long changeCountAtStart;
+        long startNanos;
+        synchronized (lagLock) {
+            if (synced && !pending) {
+                return -1;
+            }
+            changeCountAtStart = changeCount;
+            startNanos = System.nanoTime();
+        }
+        Integer copied = replicaTransactionTemplate.execute(status -> copyTasks());
+        synchronized (lagLock) {
+            if (changeCount == changeCountAtStart) {
+                pending = false;
+            } else {
+                pendingSinceNanos = startNanos;
+                pending = true;
+            }
+            synced = true;
+        }
+        logger.debug("レプリカを同期しました。件数: {}, 所要時間: {} ms", copied, (System.nanoTime() - startNanos) / 1_000_000);
+        return copied;
+    }
+
+    private int copyTasks() {
+        replicaJdbcTemplate.update("DELETE FROM tasks");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int[] copied = { 0 };
+        primaryJdbcTemplate.query(SELECT_TASKS, rs -> {
+            batch.add(new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4),
+                    rs.getObject(5, LocalDateTime.class), rs.getObject(6, LocalDateTime.class) });
+            if (batch.size() == BATCH_SIZE) {
+                copied[0] += flush(batch);
+            }
+        });
+        return copied[0] + flush(batch);
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        replicaJdbcTemplate.batchUpdate(INSERT_TASK, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    // レプリカの遅延（ナノ秒）。まだ同期していない場合は Long.MAX_VALUE
+    public long lagNanos() {
+        if (!synced) {
+            return Long.MAX_VALUE;
+        }
+        if (!pending) {
+            return 0;
+        }
+        return System.nanoTime() - pendingSinceNanos;
+    }
+
+    // レプリカの遅延が許容範囲内で、読み取りに使えるかどうか
+    public boolean isWithinLagTolerance() {
+        return lagNanos() <= maxLagNanos;
+    }
+}
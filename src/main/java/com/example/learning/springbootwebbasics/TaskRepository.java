@@ -1,8 +1,22 @@
 package com.example.learning.springbootwebbasics;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository // このインターフェースがリポジトリであることを示す
 public interface TaskRepository extends JpaRepository<Task, Long> {
     /*
@@ -16,5 +30,72 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
      * 必要に応じて、独自のメソッドを定義することも可能
      * 例：List<Task> findByCompleted(boolean completed): // completed フィールドでタスクを検索
      */
-    
+
+    // キーセットページネーション：指定した ID より後ろのタスクを ID 昇順で limit 件取得する
+    List<Task> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // キーセットページネーション（完了状態で絞り込み）：(completed, id) インデックスを利用する
+    List<Task> findByCompletedAndIdGreaterThanOrderByIdAsc(boolean completed, Long afterId, Limit limit);
+
+    // キャッシュの事前読み込み用：直近に作成されたタスクを ID の降順で取得する
+    List<Task> findByOrderByIdDesc(Limit limit);
+
+    // 要約一覧用：必要な列だけを TaskSummary として読み込む（エンティティを生成しない）
+    List<TaskSummary> findSummaryByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<TaskSummary> findSummaryByCompletedAndIdGreaterThanOrderByIdAsc(boolean completed, Long id, Limit limit);
+
+    // ETag の比較用：エンティティを読み込まずに更新日時だけを取得する
+    @Query("select t.updatedAt from Task t where t.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    // 統計用：全件数と完了済みの件数を 1 回の集計クエリで取得する
+    @Query("select new com.example.learning.springbootwebbasics.TaskCounts(count(t), "
+            + "coalesce(sum(case when t.completed = true then 1 else 0 end), 0)) from Task t")
+    TaskCounts countTasks();
+
+    // 部分更新：null の項目は現在の値のまま、1 回の UPDATE で更新する（戻り値は更新件数）
+    @Modifying
+    @Query("""
+            update Task t
+               set t.title = coalesce(:title, t.title),
+                   t.description = coalesce(:description, t.description),
+                   t.completed = coalesce(:completed, t.completed),
+                   t.updatedAt = :updatedAt
+             where t.id = :id
+            """)
+    int patchById(@Param("id") Long id, @Param("title") String title, @Param("description") String description,
+            @Param("completed") Boolean completed, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // 部分更新（変更前の完了状態が expectedCompleted の場合だけ更新する）：更新できたかどうかで変更前の完了状態が分かる
+    @Modifying
+    @Query("""
+            update Task t
+               set t.title = coalesce(:title, t.title),
+                   t.description = coalesce(:description, t.description),
+                   t.completed = :completed,
+                   t.updatedAt = :updatedAt
+             where t.id = :id and t.completed = :expectedCompleted
+            """)
+    int patchByIdAndCompleted(@Param("id") Long id, @Param("title") String title, @Param("description") String description,
+            @Param("completed") boolean completed, @Param("updatedAt") LocalDateTime updatedAt,
+            @Param("expectedCompleted") boolean expectedCompleted);
+
+    // 存在確認をせずに 1 回の DELETE で削除する（戻り値は削除件数）
+    @Modifying
+    @Query("delete from Task t where t.id = :id")
+    int deleteTaskById(@Param("id") Long id);
+
+    // 完了状態が一致する場合だけ削除する（戻り値は削除件数）：削除できたかどうかで削除前の完了状態が分かる
+    @Modifying
+    @Query("delete from Task t where t.id = :id and t.completed = :completed")
+    int deleteTaskByIdAndCompleted(@Param("id") Long id, @Param("completed") boolean completed);
+
+    // 全件エクスポート用：JDBC の fetch size 単位で読み進めるストリーム（トランザクション内で close すること）
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Task> streamAllByOrderByIdAsc();
+
 }
@@ -0,0 +1,8 @@
+package com.example.learning.springbootwebbasics;
+
+/*
+ * タスク検索の 1 件分の結果です。
+ * score は検索語との関連度（ BM25 ）で、値が大きいほど関連が強い。
+ */
+public record TaskSearchHit(Long id, String title, boolean completed, double score) {
+}
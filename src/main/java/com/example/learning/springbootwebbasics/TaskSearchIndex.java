@@ -0,0 +1,268 @@
+package com.example.learning.springbootwebbasics;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+ * タスクのタイトルと説明に対するインメモリの転置インデックスです。
+ * 起動時に全タスクから構築し、その後は TaskChangedEvent（コミット後）で差分更新する。
+ * 英数字は単語単位、日本語（漢字・ひらがな・カタカナ）は文字 bigram と 1 文字（ unigram ）単位で索引付けし、
+ * 検索は全ての検索語を含むタスクを BM25 でスコアリングして上位 k 件を返す。
+ */
+@Component
+public class TaskSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    // BM25 のパラメーター
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 索引語 → (タスク ID → 出現回数と文書長)
+    private final Map<String, Map<Long, Posting>> postings = new ConcurrentHashMap<>();
+
+    // タスク ID → 索引済みの内容（削除・再索引時に古い索引語を取り除くために保持する）
+    private final Map<Long, IndexedTask> documents = new ConcurrentHashMap<>();
+
+    // 全タスクの索引語数の合計（平均文書長の算出用）
+    private final AtomicLong totalLength = new AtomicLong();
+
+    private final TaskService taskService;
+
+    public TaskSearchIndex(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    // 索引済みのタスク
+    private record IndexedTask(String title, boolean completed, Map<String, Integer> termFrequencies, int length) {
+    }
+
+    // ポスティング（スコア計算に必要な値を持たせ、検索中に documents を引かずに済むようにする）
+    private record Posting(int frequency, int length) {
+    }
+
+    // 起動時に全タスクをストリームで読み込んでインデックスを構築する
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long count = taskService.exportAll(this::index);
+        logger.info("検索インデックスを構築しました。タスク数: {}, 索引語数: {}", count, postings.size());
+    }
+
+    // タスクの変更をコミット後にインデックスへ反映する
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                if (event.task() != null) {
+                    index(event.task());
+                } else {
+                    // 部分更新の場合は変更後の状態を DB から読み直す
+                    // キャッシュの削除はこのリスナーの後に行われるため、キャッシュを介すと変更前の状態を読んでしまう
+                    taskService.loadTask(event.taskId()).ifPresentOrElse(this::index, () -> remove(event.taskId()));
+                }
+            }
+            case DELETED -> remove(event.taskId());
+        }
+    }
+
+    // タスクを索引付けする（索引済みの場合は置き換える）
+    public void index(Task task) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String term : tokenize(task.getTitle() + " " + (task.getDescription() == null ? "" : task.getDescription()), true)) {
+            termFrequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        IndexedTask indexed = new IndexedTask(task.getTitle(), task.isCompleted(), termFrequencies, length);
+        Long id = task.getId();
+        // 同じタスクへの更新が並行しても索引語がずれないよう、タスク単位で直列化する
+        documents.compute(id, (key, previous) -> {
+            if (previous != null) {
+                unlink(id, previous);
+            }
+            indexed.termFrequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(id, new Posting(frequency, indexed.length())));
+            totalLength.addAndGet(indexed.length());
+            return indexed;
+        });
+    }
+
+    // タスクをインデックスから取り除く
+    public void remove(Long id) {
+        documents.computeIfPresent(id, (key, previous) -> {
+            unlink(id, previous);
+            return null;
+        });
+    }
+
+    private void unlink(Long id, IndexedTask previous) {
+        previous.termFrequencies().keySet().forEach(term ->
+                postings.computeIfPresent(term, (t, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                }));
+        totalLength.addAndGet(-previous.length());
+    }
+
+    /*
+     * キーワードに一致するタスクを関連度の高い順に最大 limit 件返す。
+     * @param keyword 検索キーワード（空白区切りの複数語は全てを含むタスクに一致する）
+     * @param limit 返す件数の上限
+     * @return 関連度の降順に並んだ検索結果（呼び出し側で並べ替えられるよう、変更可能なリストを返す）
+     */
+    public List<TaskSearchHit> search(String keyword, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(keyword));
+        int documentCount = documents.size();
+        if (terms.isEmpty() || documentCount == 0) {
+            return new ArrayList<>();
+        }
+        List<Map<Long, Posting>> termPostings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Long, Posting> ids = postings.get(term);
+            if (ids == null) {
+                return new ArrayList<>(); // 含まれない検索語がある場合は一致なし
+            }
+            termPostings.add(ids);
+        }
+        // 最も短いポスティングリストを起点に、他の全ての検索語を含むタスクだけを評価する
+        termPostings.sort(Comparator.comparingInt(Map::size));
+        double averageLength = Math.max(1.0, (double) totalLength.get() / documentCount);
+        double[] idf = termPostings.stream()
+                .mapToDouble(ids -> Math.log(1 + (documentCount - ids.size() + 0.5) / (ids.size() + 0.5)))
+                .toArray();
+
+        // スコアの低い順に並ぶ上位 limit 件のヒープ。上位に入らない候補はオブジェクトを生成しない
+        PriorityQueue<ScoredId> topScores = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(ScoredId::score));
+        candidates:
+        for (Map.Entry<Long, Posting> entry : termPostings.get(0).entrySet()) {
+            Long id = entry.getKey();
+            double score = termScore(idf[0], entry.getValue(), averageLength);
+            for (int i = 1; i < termPostings.size(); i++) {
+                Posting posting = termPostings.get(i).get(id);
+                if (posting == null) {
+                    continue candidates;
+                }
+                score += termScore(idf[i], posting, averageLength);
+            }
+            if (topScores.size() < limit) {
+                topScores.offer(new ScoredId(id, score));
+            } else if (score > topScores.peek().score()) {
+                topScores.poll(); // 最もスコアの低いものを捨て、上位 limit 件だけを保持する
+                topScores.offer(new ScoredId(id, score));
+            }
+        }
+        List<TaskSearchHit> hits = new ArrayList<>(topScores.size());
+        for (ScoredId scored : topScores) {
+            IndexedTask document = documents.get(scored.id());
+            if (document != null) {
+                hits.add(new TaskSearchHit(scored.id(), document.title(), document.completed(), scored.score()));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(TaskSearchHit::score).reversed());
+        return hits;
+    }
+
+    // 検索語 1 つ分の BM25 スコア
+    private static double termScore(double idf, Posting posting, double averageLength) {
+        return idf * posting.frequency() * (K1 + 1)
+                / (posting.frequency() + K1 * (1 - B + B * posting.length() / averageLength));
+    }
+
+    // 上位 k 件の選択中に保持するスコア
+    private record ScoredId(Long id, double score) {
+    }
+
+    // 検索インデックスに登録されているタスク数
+    public int size() {
+        return documents.size();
+    }
+
+    /*
+     * 検索キーワードを検索語に分割する。
+     * 英数字の連続は 1 語、漢字・ひらがな・カタカナの連続は 2 文字ずつの bigram（ 1 文字のみの場合はその文字）とする。
+     */
+    static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /*
+     * テキストを索引語に分割する。
+     * @param unigrams true の場合、日本語の各文字も索引語に加える（ 1 文字のキーワードで検索できるようにするため）
+     */
+    static List<String> tokenize(String text, boolean unigrams) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int start = 0;
+        while (start < length) {
+            int codePoint = normalized.codePointAt(start);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                start += Character.charCount(codePoint);
+                continue;
+            }
+            boolean cjk = isCjk(codePoint);
+            int end = start;
+            while (end < length) {
+                int next = normalized.codePointAt(end);
+                if (!Character.isLetterOrDigit(next) || isCjk(next) != cjk) {
+                    break;
+                }
+                end += Character.charCount(next);
+            }
+            String run = normalized.substring(start, end);
+            if (cjk) {
+                addBigrams(run, terms, unigrams);
+            } else {
+                terms.add(run);
+            }
+            start = end;
+        }
+        return terms;
+    }
+
+    private static void addBigrams(String run, List<String> terms, boolean unigrams) {
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1) {
+            terms.add(run);
+            return;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            terms.add(new String(codePoints, i, 2));
+        }
+        if (unigrams) {
+            for (int i = 0; i < codePoints.length; i++) {
+                terms.add(new String(codePoints, i, 1));
+            }
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        if (codePoint == 'ー') {
+            return true; // 長音記号（ Common スクリプト）はカタカナの一部として扱う
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+}
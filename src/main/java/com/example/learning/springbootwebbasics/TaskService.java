@@ -1,57 +1,482 @@
 package com.example.learning.springbootwebbasics;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 
 @Service // このクラスがサービス層のコンポーネントであることを示す
 @Transactional // クラス内の全てのパブリックメソッドにトランザクションを適用
+@Timed("tasks.service") // 全てのパブリックメソッドの実行時間を計測する（ class / method タグ付き）
 public class TaskService {
+
+    // エクスポート中に永続化コンテキストをクリアする間隔（件数）
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+
+    // 複数 ID 取得時に 1 回の IN クエリに含める ID の最大数（バインド変数の上限対策）
+    private static final int LOOKUP_CHUNK_SIZE = 500;
     
     private final TaskRepository taskRepository;
 
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache tasksCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // write-behind モードで DB に未反映の更新を保持するバッファ
+    private final TaskWriteBuffer writeBuffer;
+
+    // 一括処理で 1 トランザクションにまとめる操作数
+    private final int batchChunkSize;
+
     // コンストラクタインジェクション（ Spring が TaskRepository のインスタンスを自動的に提供）
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository, EntityManager entityManager,
+            TransactionTemplate transactionTemplate, CacheManager cacheManager,
+            ApplicationEventPublisher eventPublisher, TaskWriteBuffer writeBuffer,
+            @Value("${app.tasks.batch.chunk-size:500}") int batchChunkSize) {
         this.taskRepository = taskRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.tasksCache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+        this.eventPublisher = eventPublisher;
+        this.writeBuffer = writeBuffer;
+        this.batchChunkSize = batchChunkSize;
     }
 
     // 全てのタスクを取得する
+    @Transactional(readOnly = true)
     public List<Task> findAll() {
-        return taskRepository.findAll();
+        return taskRepository.findAll().stream().map(writeBuffer::overlay).toList();
+    }
+
+    /*
+     * キーセット（ID）ベースでタスクを 1 ページ分取得する。
+     * OFFSET を使わないため、どのページでも取得コストは一定になる。
+     * @param afterId この ID より後ろのタスクを取得する（先頭ページは 0）
+     * @param limit 1 ページあたりの件数
+     * @param completed 完了状態での絞り込み（null の場合は絞り込まない）
+     * @return タスクと次ページ用カーソルを含む TaskPage
+     */
+    @Transactional(readOnly = true) // 変更検知用のスナップショットを取らず、フラッシュもしない
+    public TaskPage<Task> findPage(long afterId, int limit, Boolean completed) {
+        // 次ページの有無を判定するため 1 件多く取得する
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<Task> tasks = (completed == null)
+                ? taskRepository.findByIdGreaterThanOrderByIdAsc(afterId, fetchLimit)
+                : taskRepository.findByCompletedAndIdGreaterThanOrderByIdAsc(completed, afterId, fetchLimit);
+
+        tasks = tasks.stream().map(writeBuffer::overlay).toList(); // write-behind の未反映の更新を重ねる
+
+        if (tasks.size() <= limit) {
+            return new TaskPage<>(tasks, null);
+        }
+        List<Task> pageItems = tasks.subList(0, limit);
+        return new TaskPage<>(pageItems, TaskCursor.encode(pageItems.get(limit - 1).getId()));
+    }
+
+    /*
+     * findPage と同じ条件で、タスクの要約（ TaskSummary ）を 1 ページ分取得する。
+     * 必要な列だけを DTO として読み込むため、エンティティの生成・永続化コンテキストへの登録が発生しない。
+     * @return 要約と次ページ用カーソルを含む TaskPage（カーソルは findPage と共通）
+     */
+    @Transactional(readOnly = true)
+    public TaskPage<TaskSummary> findSummaryPage(long afterId, int limit, Boolean completed) {
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<TaskSummary> summaries = (completed == null)
+                ? taskRepository.findSummaryByIdGreaterThanOrderByIdAsc(afterId, fetchLimit)
+                : taskRepository.findSummaryByCompletedAndIdGreaterThanOrderByIdAsc(completed, afterId, fetchLimit);
+        summaries = summaries.stream().map(writeBuffer::overlay).toList();
+
+        if (summaries.size() <= limit) {
+            return new TaskPage<>(summaries, null);
+        }
+        List<TaskSummary> pageItems = summaries.subList(0, limit);
+        return new TaskPage<>(pageItems, TaskCursor.encode(pageItems.get(limit - 1).id()));
+    }
+
+    /*
+     * 全てのタスクを ID 昇順で 1 件ずつ consumer に渡す。
+     * リストを作らずにストリームで読み進め、一定件数ごとに永続化コンテキストをクリアするため、
+     * テーブルの件数に関係なくメモリ使用量は一定になる。
+     * @param consumer 読み込んだタスクを受け取る処理（レスポンスへの書き込みなど）
+     * @return エクスポートした件数
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(Consumer<Task> consumer) {
+        long count = 0;
+        try (Stream<Task> tasks = taskRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(writeBuffer.overlay(iterator.next()));
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear(); // 書き出し済みのエンティティを解放する
+                }
+            }
+        }
+        return count;
     }
 
-    // ID でタスクを取得する
+    // ID でタスクを取得する（キャッシュにあれば DB にアクセスしない。存在しない ID はキャッシュしない）
+    // write-behind の未反映の更新がある場合は、それを重ねた状態を返してキャッシュする
+    // 結果をキャッシュするため、レプリカへの振り分けが有効でもプライマリから読み込む
+    @Cacheable(cacheNames = CacheConfig.TASKS_CACHE, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
+    @PrimaryRead
     public Optional<Task> findTaskById(Long id) {
-        return taskRepository.findById(id);
+        return taskRepository.findById(id).map(writeBuffer::overlay);
+    }
+
+    // ID でタスクをキャッシュを介さずに DB から読み込む（キャッシュには載せない）
+    // 部分更新のイベントのように、キャッシュの削除より先に変更後の状態が必要な場合に使う
+    @Transactional(readOnly = true)
+    @PrimaryRead // コミット直後の変更をレプリカはまだ反映していないため
+    public Optional<Task> loadTask(Long id) {
+        return taskRepository.findById(id).map(writeBuffer::overlay);
+    }
+
+    /*
+     * 複数の ID に一致するタスクをまとめて取得する。
+     * キャッシュにあるタスクはそのまま使い、残りは LOOKUP_CHUNK_SIZE 件ごとの IN クエリで読み込んでキャッシュに載せる。
+     * @param ids 取得するタスクの ID（重複は最初の 1 件のみ扱う）
+     * @return 指定順に並んだタスクと、見つからなかった ID
+     */
+    @Transactional(readOnly = true)
+    @PrimaryRead // 読み込んだタスクをキャッシュに載せるため
+    public TaskLookupResult findTasksByIds(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, Task> found = new HashMap<>(uniqueIds.size() * 2);
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            Task cachedTask = tasksCache.get(id, Task.class);
+            if (cachedTask != null) {
+                found.put(id, cachedTask);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+        for (int from = 0; from < uncachedIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = uncachedIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, uncachedIds.size()));
+            for (Task loadedTask : taskRepository.findAllById(chunk)) {
+                Task task = writeBuffer.overlay(loadedTask);
+                found.put(task.getId(), task);
+                tasksCache.put(task.getId(), task);
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            Task task = found.get(id);
+            if (task != null) {
+                tasks.add(task);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new TaskLookupResult(tasks, missing);
+    }
+
+    // ID でタスクの更新日時（ ETag の元になるバージョン）だけを取得する。キャッシュ済みなら DB にアクセスしない
+    @Transactional(readOnly = true)
+    @PrimaryRead // キャッシュ済みのタスクと同じ基準で比較するため（レプリカの古いバージョンで 304 を返さない）
+    public Optional<LocalDateTime> findTaskVersion(Long id) {
+        Task cachedTask = tasksCache.get(id, Task.class);
+        if (cachedTask != null) {
+            return Optional.of(cachedTask.getUpdatedAt());
+        }
+        Optional<LocalDateTime> pendingUpdatedAt = writeBuffer.pendingUpdatedAt(id);
+        if (pendingUpdatedAt.isPresent()) {
+            return pendingUpdatedAt;
+        }
+        return taskRepository.findUpdatedAtById(id);
+    }
+
+    /*
+     * 直近に作成されたタスクを最大 size 件読み込み、ID 取得用のキャッシュに載せる。
+     * 再起動直後の ID 取得がキャッシュミスで DB に集中しないよう、起動時に呼び出す。
+     * @return キャッシュに載せた件数
+     */
+    @Transactional(readOnly = true)
+    @PrimaryRead
+    public int prewarmCache(int size) {
+        List<Task> tasks = taskRepository.findByOrderByIdDesc(Limit.of(size));
+        for (Task task : tasks) {
+            tasksCache.putIfAbsent(task.getId(), writeBuffer.overlay(task));
+        }
+        return tasks.size();
+    }
+
+    // タスクの全件数と完了済みの件数を 1 回の集計クエリで取得する（統計の基準値用）
+    // 基準値は変更イベントの差分と合わせて使うため、レプリカの遅延分がずれないようプライマリから読み込む
+    @Transactional(readOnly = true)
+    @PrimaryRead
+    public TaskCounts countTasks() {
+        return taskRepository.countTasks();
     }
 
     // 新しいタスクを作成する
     public Task createTask(Task task) {
         // ここにビジネスロジックを追加できる（例：タスク名の重複チェックなど）
-        return taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+        eventPublisher.publishEvent(TaskChangedEvent.created(savedTask));
+        return savedTask;
     }
 
-    // タスクを更新する
+    // タスクを更新する（更新後のタスクでキャッシュを置き換える）
+    @CachePut(cacheNames = CacheConfig.TASKS_CACHE, key = "#id", unless = "#result == null")
     public Optional<Task> udateTask(Long id, TaskRequest taskRequest) {
         return taskRepository.findById(id)
                 .map(existingTask -> {
-                    existingTask.setTitle(taskRequest.getTitle());
-                    existingTask.setDescription(taskRequest.getDescription());
-                    existingTask.setCompleted(taskRequest.isCompleted());
-                    return taskRepository.save(existingTask);
+                    boolean previouslyCompleted = existingTask.isCompleted();
+                    applyRequest(existingTask, taskRequest);
+                    Task savedTask = taskRepository.save(existingTask);
+                    eventPublisher.publishEvent(TaskChangedEvent.updated(savedTask, previouslyCompleted));
+                    return savedTask;
                 });
 
     }
 
-    // タスクを削除する
+    /*
+     * タスクを部分更新する。エンティティを読み込まず、UPDATE 文で指定された項目だけを更新する。
+     * 完了状態を変更する場合は、変更前の完了状態を条件にした UPDATE を順に試し、どちらで更新できたかで変更前の状態を知る。
+     * 統計（ TaskStatistics ）が tasks テーブルを集計し直さずに、完了済みの件数を正確に増減できるようにするため。
+     * @param id 更新対象のタスク ID
+     * @param patchRequest 更新内容（ null の項目は変更しない）
+     * @return 更新後の更新日時（ ETag 用）。タスクが存在しない場合は空
+     */
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = "#id")
+    public Optional<LocalDateTime> patchTask(Long id, TaskPatchRequest patchRequest) {
+        LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Boolean completed = patchRequest.getCompleted();
+        if (completed == null) {
+            if (taskRepository.patchById(id, patchRequest.getTitle(), patchRequest.getDescription(), null, updatedAt) == 0) {
+                return Optional.empty();
+            }
+            eventPublisher.publishEvent(TaskChangedEvent.updated(id));
+            return Optional.of(updatedAt);
+        }
+        Boolean previouslyCompleted = null;
+        for (boolean expected : new boolean[] { !completed, completed }) {
+            if (taskRepository.patchByIdAndCompleted(id, patchRequest.getTitle(), patchRequest.getDescription(),
+                    completed, updatedAt, expected) == 1) {
+                previouslyCompleted = expected;
+                break;
+            }
+        }
+        // 2 つの UPDATE の間に他のトランザクションが完了状態を変えた場合（まれ）は、条件なしで更新する
+        if (previouslyCompleted == null && taskRepository.patchById(id, patchRequest.getTitle(),
+                patchRequest.getDescription(), completed, updatedAt) == 0) {
+            return Optional.empty();
+        }
+        eventPublisher.publishEvent(TaskChangedEvent.patched(id, completed, previouslyCompleted));
+        return Optional.of(updatedAt);
+    }
+
+    // タスクを削除する（存在確認を兼ねた DELETE 文で削除し、キャッシュからも削除する）
+    // 完了状態を条件にした DELETE を順に試し、削除前の完了状態を統計に渡す（エンティティは読み込まない）
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = "#id")
     public boolean deleteTask(Long id) {
-        if (taskRepository.existsById(id)) {
-            taskRepository.deleteById(id);
-            return true;
+        writeBuffer.discard(id); // 削除するタスクの未反映の更新は不要になる
+        for (boolean completed : new boolean[] { false, true }) {
+            if (taskRepository.deleteTaskByIdAndCompleted(id, completed) == 1) {
+                eventPublisher.publishEvent(TaskChangedEvent.deleted(id, completed));
+                return true;
+            }
+        }
+        // 2 つの DELETE の間に他のトランザクションが完了状態を変えた場合（まれ）は、条件なしで削除する
+        if (taskRepository.deleteTaskById(id) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(TaskChangedEvent.deleted(id));
+        return true;
+    }
+
+    // write-behind モードが有効かどうか（有効な場合、更新は bufferUpdate / bufferPatch で受け付ける）
+    public boolean isWriteBehindEnabled() {
+        return writeBuffer.isEnabled();
+    }
+
+    /*
+     * write-behind モードでタスクを更新する。DB には書き込まず、更新内容をバッファに追加する。
+     * DB への反映は TaskWriteBehindFlusher がまとめて行う。
+     * @return 更新を重ねたタスク（キャッシュにも載せる）。タスクが存在しない場合は空
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // DB には存在確認の読み取りしか行わない
+    public Optional<Task> bufferUpdate(Long id, TaskRequest taskRequest) {
+        return bufferChange(id, PendingTaskUpdate.of(taskRequest, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)));
+    }
+
+    /*
+     * write-behind モードでタスクを部分更新する。DB には書き込まず、更新内容をバッファに追加する。
+     * @return 更新後の更新日時（ ETag 用）。タスクが存在しない場合は空
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<LocalDateTime> bufferPatch(Long id, TaskPatchRequest patchRequest) {
+        return bufferChange(id, PendingTaskUpdate.of(patchRequest, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)))
+                .map(Task::getUpdatedAt);
+    }
+
+    // 存在するタスクの更新をバッファに追加し、更新を重ねたタスクでキャッシュを置き換える
+    private Optional<Task> bufferChange(Long id, PendingTaskUpdate update) {
+        Task base = tasksCache.get(id, Task.class);
+        if (base == null) {
+            base = taskRepository.findById(id).orElse(null);
+            if (base == null) {
+                return Optional.empty();
+            }
         }
-        return false;
+        writeBuffer.enqueue(id, update);
+        Task view = writeBuffer.overlay(base);
+        tasksCache.put(id, view);
+        return Optional.of(view);
+    }
+
+    /*
+     * write-behind バッファから最大 batchChunkSize 件の更新を取り出し、1 トランザクションで DB に反映する。
+     * 対象のタスクは 1 回の IN クエリで読み込み、UPDATE は JDBC バッチとして送信される。
+     * 失敗した場合、取り出した更新はバッファに戻される。
+     * @return 反映した更新の件数（その間に削除されたタスクの分は含まない）
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // トランザクションは自前で管理する
+    public int flushWriteBuffer() {
+        Map<Long, PendingTaskUpdate> updates = writeBuffer.drain(batchChunkSize);
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        List<Task> flushedTasks;
+        try {
+            flushedTasks = transactionTemplate.execute(status -> {
+                List<Task> tasks = taskRepository.findAllById(updates.keySet());
+                for (Task task : tasks) {
+                    boolean previouslyCompleted = task.isCompleted();
+                    updates.get(task.getId()).applyTo(task); // 変更はコミット時にまとめて UPDATE される
+                    eventPublisher.publishEvent(TaskChangedEvent.updated(task, previouslyCompleted));
+                }
+                return tasks;
+            });
+        } catch (RuntimeException e) {
+            writeBuffer.requeue(updates);
+            throw e;
+        }
+        // コミット後の状態（その後に届いた未反映の更新があれば重ねる）でキャッシュを置き換える
+        for (Task task : flushedTasks) {
+            tasksCache.put(task.getId(), writeBuffer.overlay(task));
+        }
+        return flushedTasks.size();
+    }
+
+    /*
+     * 作成・更新・削除の操作をまとめて実行する。
+     * 操作は batchChunkSize 件ごとに別々のトランザクションでコミットされ、
+     * 各チャンク内の INSERT / UPDATE / DELETE は JDBC バッチとして送信される。
+     * 途中のチャンクで失敗した場合、それ以前にコミット済みのチャンクは取り消されない。
+     * @param operations 実行する操作のリスト（リクエスト順に処理される）
+     * @return 操作ごとの結果（リクエストと同じ順序）
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // チャンクごとのトランザクションは自前で管理する
+    public List<TaskBatchResult> applyBatch(List<TaskBatchOperation> operations) {
+        List<TaskBatchResult> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += batchChunkSize) {
+            int offset = from;
+            List<TaskBatchOperation> chunk = operations.subList(from, Math.min(from + batchChunkSize, operations.size()));
+            List<TaskBatchResult> chunkResults = transactionTemplate.execute(status -> applyChunk(chunk, offset));
+            // コミット後に、更新・削除したタスクをキャッシュから取り除く
+            chunkResults.stream()
+                    .filter(result -> result.status() == TaskBatchResult.Status.UPDATED
+                            || result.status() == TaskBatchResult.Status.DELETED)
+                    .forEach(result -> tasksCache.evict(result.id()));
+            results.addAll(chunkResults);
+        }
+        return results;
+    }
+
+    // 1 チャンク分の操作を現在のトランザクション内で実行する
+    private List<TaskBatchResult> applyChunk(List<TaskBatchOperation> chunk, int offset) {
+        // UPDATE / DELETE 対象を 1 回の IN クエリでまとめて読み込む
+        Set<Long> targetIds = chunk.stream()
+                .filter(operation -> operation.getOp() != TaskBatchOperation.Type.CREATE)
+                .map(TaskBatchOperation::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Task> existingTasks = taskRepository.findAllById(targetIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        List<TaskBatchResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TaskBatchOperation operation = chunk.get(i);
+            int index = offset + i;
+            switch (operation.getOp()) {
+                case CREATE -> {
+                    TaskRequest request = operation.getTask();
+                    Task task = taskRepository.save(new Task(request.getTitle(), request.getDescription(), request.isCompleted()));
+                    eventPublisher.publishEvent(TaskChangedEvent.created(task));
+                    results.add(new TaskBatchResult(index, operation.getOp(), task.getId(), TaskBatchResult.Status.CREATED));
+                }
+                case UPDATE -> {
+                    Task task = existingTasks.get(operation.getId());
+                    if (task == null) {
+                        results.add(new TaskBatchResult(index, operation.getOp(), operation.getId(), TaskBatchResult.Status.NOT_FOUND));
+                    } else {
+                        writeBuffer.discard(task.getId()); // 古い未反映の更新で上書きされないようにする
+                        boolean previouslyCompleted = task.isCompleted();
+                        applyRequest(task, operation.getTask()); // 変更はフラッシュ時にまとめて UPDATE される
+                        eventPublisher.publishEvent(TaskChangedEvent.updated(task, previouslyCompleted));
+                        results.add(new TaskBatchResult(index, operation.getOp(), task.getId(), TaskBatchResult.Status.UPDATED));
+                    }
+                }
+                case DELETE -> {
+                    Task task = existingTasks.remove(operation.getId()); // 同じチャンク内の後続操作からは見えなくする
+                    if (task == null) {
+                        results.add(new TaskBatchResult(index, operation.getOp(), operation.getId(), TaskBatchResult.Status.NOT_FOUND));
+                    } else {
+                        writeBuffer.discard(task.getId());
+                        taskRepository.delete(task);
+                        eventPublisher.publishEvent(TaskChangedEvent.deleted(task));
+                        results.add(new TaskBatchResult(index, operation.getOp(), task.getId(), TaskBatchResult.Status.DELETED));
+                    }
+                }
+            }
+        }
+        // チャンク分の SQL を送信し、永続化コンテキストを空にしてメモリを解放する
+        entityManager.flush();
+        entityManager.clear();
+        return results;
+    }
+
+    // リクエストの内容をエンティティに反映する
+    private static void applyRequest(Task task, TaskRequest taskRequest) {
+        task.setTitle(taskRequest.getTitle());
+        task.setDescription(taskRequest.getDescription());
+        task.setCompleted(taskRequest.isCompleted());
     }
 
 }
@@ -0,0 +1,173 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+ * タスクの件数と作成ペースを、テーブルを走査せずに返すためのインメモリ統計です。
+ * 起動時に 1 回の集計クエリで基準値を読み込み、その後は TaskChangedEvent（コミット後）で LongAdder の差分を加減する。
+ * PATCH や ID 指定の削除も、変更前の完了状態をイベントで受け取って差分を加減する（ TaskService の条件付き UPDATE / DELETE ）。
+ * 変更前の完了状態が分からない変更（条件付きの文の間に完了状態が変わった場合のみ）は dirty として、次の確認時に DB と突き合わせる。
+ * dirty でなくても、一定間隔（ app.tasks.stats.reconcile-interval ）で DB と突き合わせてずれを解消する。
+ */
+@Component
+public class TaskStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatistics.class);
+
+    private final TaskService taskService;
+
+    // 最後に DB と突き合わせた時点の件数と、その時点の差分カウンタの値
+    private volatile Baseline baseline = new Baseline(0, 0, 0, 0, null);
+
+    // 基準値からの増減（突き合わせ時もリセットせず、基準値側で差し引く）
+    private final LongAdder totalDelta = new LongAdder();
+
+    private final LongAdder completedDelta = new LongAdder();
+
+    // 完了済みの件数が不確かになったことを表すフラグ
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // 作成件数：直近 1 分（ 1 秒 × 60 ）と直近 1 時間（ 1 分 × 60 ）
+    private final WindowCounter createdPerSecond = new WindowCounter(60, 1_000);
+
+    private final WindowCounter createdPerMinute = new WindowCounter(60, 60_000);
+
+    private record Baseline(long total, long completed, long totalDelta, long completedDelta, Instant reconciledAt) {
+    }
+
+    public TaskStatistics(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    // 現在の統計を返す（ DB にはアクセスしない）
+    public TaskStats snapshot() {
+        Baseline current = baseline;
+        long total = current.total() + (totalDelta.sum() - current.totalDelta());
+        long completed = current.completed() + (completedDelta.sum() - current.completedDelta());
+        long now = System.currentTimeMillis();
+        return new TaskStats(total, completed, total - completed,
+                createdPerSecond.sum(now), createdPerMinute.sum(now), current.reconciledAt());
+    }
+
+    // 起動完了時に基準値を読み込む
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    // 一定間隔で DB の集計値と突き合わせる
+    @Scheduled(fixedDelayString = "${app.tasks.stats.reconcile-interval:5m}",
+            initialDelayString = "${app.tasks.stats.reconcile-interval:5m}")
+    public void reconcilePeriodically() {
+        reconcile();
+    }
+
+    // 完了済みの件数が不確かになっていれば、DB の集計値と突き合わせる
+    @Scheduled(fixedDelayString = "${app.tasks.stats.dirty-check-interval:1s}")
+    public void reconcileIfDirty() {
+        if (dirty.get()) {
+            reconcile();
+        }
+    }
+
+    /*
+     * DB の集計値を基準値として読み込む。
+     * 集計中にコミットされた変更は、差分カウンタとの二重計上になることがあるが、次回の突き合わせで解消される。
+     */
+    public synchronized void reconcile() {
+        dirty.set(false); // 集計中に届いた不確かな変更は、再度 dirty にする
+        long totalDeltaBefore = totalDelta.sum();
+        long completedDeltaBefore = completedDelta.sum();
+        TaskCounts counts = taskService.countTasks();
+        baseline = new Baseline(counts.total(), counts.completed(), totalDeltaBefore, completedDeltaBefore, Instant.now());
+        logger.debug("タスク統計を DB と突き合わせました。全件数: {}, 完了済み: {}", counts.total(), counts.completed());
+    }
+
+    // タスクの変更をコミット後に差分カウンタへ反映する
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> {
+                totalDelta.increment();
+                if (event.task().isCompleted()) {
+                    completedDelta.increment();
+                }
+                long now = System.currentTimeMillis();
+                createdPerSecond.increment(now);
+                createdPerMinute.increment(now);
+            }
+            case UPDATED -> {
+                Boolean completed = event.completed();
+                Boolean previouslyCompleted = event.previouslyCompleted();
+                if (completed == null && previouslyCompleted == null) {
+                    return; // 完了状態を変更しない部分更新
+                }
+                if (completed == null || previouslyCompleted == null) {
+                    dirty.set(true);
+                } else if (!completed.equals(previouslyCompleted)) {
+                    completedDelta.add(completed ? 1 : -1);
+                }
+            }
+            case DELETED -> {
+                totalDelta.decrement();
+                if (event.previouslyCompleted() == null) {
+                    dirty.set(true);
+                } else if (event.previouslyCompleted()) {
+                    completedDelta.decrement();
+                }
+            }
+        }
+    }
+
+    /*
+     * 固定長のバケットを循環させて、直近の一定期間の件数を数えるカウンタです。
+     * バケットの切り替え時に同時に加算された 1 件が失われることがあるが、ロックは取らない。
+     */
+    static final class WindowCounter {
+
+        private final long bucketMillis;
+
+        private final AtomicLongArray counts;
+
+        // 各バケットがどの時間区間（ epoch ミリ秒 / bucketMillis ）の件数を保持しているか
+        private final AtomicLongArray periods;
+
+        WindowCounter(int buckets, long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+            this.counts = new AtomicLongArray(buckets);
+            this.periods = new AtomicLongArray(buckets);
+        }
+
+        void increment(long nowMillis) {
+            long period = nowMillis / bucketMillis;
+            int index = (int) (period % counts.length());
+            long seen = periods.get(index);
+            if (seen != period && periods.compareAndSet(index, seen, period)) {
+                counts.set(index, 0); // 前の周回の件数を捨てる
+            }
+            counts.incrementAndGet(index);
+        }
+
+        long sum(long nowMillis) {
+            long period = nowMillis / bucketMillis;
+            long sum = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                if (period - periods.get(i) < counts.length()) {
+                    sum += counts.get(i);
+                }
+            }
+            return sum;
+        }
+    }
+}
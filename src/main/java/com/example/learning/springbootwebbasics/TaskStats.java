@@ -0,0 +1,12 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.Instant;
+
+/*
+ * タスク統計のレスポンスです。
+ * createdLastMinute / createdLastHour は、このアプリケーションが受け付けた作成件数（起動前の作成は含まない）。
+ * reconciledAt は最後に DB の集計値と突き合わせた日時（未実施の場合は null ）。
+ */
+public record TaskStats(long total, long completed, long open, long createdLastMinute, long createdLastHour,
+        Instant reconciledAt) {
+}
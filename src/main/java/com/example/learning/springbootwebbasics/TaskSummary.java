@@ -0,0 +1,11 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.LocalDateTime;
+
+/*
+ * 一覧表示用のタスクの要約（ DTO プロジェクション）です。
+ * リポジトリから必要な列だけを直接このレコードとして読み込むため、エンティティの生成や変更検知のスナップショットが発生しない。
+ * 説明（ description ）と作成日時は含まない。
+ */
+public record TaskSummary(Long id, String title, boolean completed, LocalDateTime updatedAt) {
+}
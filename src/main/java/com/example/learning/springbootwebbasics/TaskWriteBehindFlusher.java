@@ -0,0 +1,80 @@
+package com.example.learning.springbootwebbasics;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * write-behind モードで、TaskWriteBuffer に溜まった更新を DB に反映するコンポーネントです。
+ * 一定間隔（ app.tasks.write-behind.flush-interval ）と、件数が max-pending に達したときにフラッシュし、
+ * アプリケーション停止時には残っている更新を全て反映する。
+ */
+@Component
+@ConditionalOnProperty(name = "app.tasks.write-behind.enabled", havingValue = "true")
+public class TaskWriteBehindFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskWriteBehindFlusher.class);
+
+    private final TaskService taskService;
+
+    private final TaskWriteBuffer writeBuffer;
+
+    // フラッシュを同時に 1 つだけ実行するためのロック
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public TaskWriteBehindFlusher(TaskService taskService, TaskWriteBuffer writeBuffer,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.taskService = taskService;
+        this.writeBuffer = writeBuffer;
+        // 件数による要求はリクエストスレッドを待たせないよう、別スレッドでフラッシュする
+        writeBuffer.setFlushTrigger(() -> taskExecutor.execute(this::flush));
+    }
+
+    // 一定間隔でフラッシュする
+    @Scheduled(fixedDelayString = "${app.tasks.write-behind.flush-interval:500ms}")
+    public void flushPeriodically() {
+        flush();
+    }
+
+    // バッファが空になるまでフラッシュする（実行中のフラッシュがあれば、そちらに任せる）
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drainAll();
+        } catch (RuntimeException e) {
+            logger.error("write-behind バッファのフラッシュに失敗しました。次回のフラッシュで再試行します。", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 停止時に、残っている更新を全て反映する
+    @PreDestroy
+    public void drainOnShutdown() {
+        flushLock.lock();
+        try {
+            int remaining = writeBuffer.size();
+            drainAll();
+            logger.info("停止前に write-behind バッファをフラッシュしました。件数: {}", remaining);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drainAll() {
+        while (writeBuffer.size() > 0) {
+            int flushed = taskService.flushWriteBuffer();
+            logger.debug("write-behind バッファから {} 件のタスク更新を反映しました。", flushed);
+        }
+    }
+}
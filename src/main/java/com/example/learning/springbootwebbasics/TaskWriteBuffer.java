@@ -0,0 +1,127 @@
+package com.example.learning.springbootwebbasics;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * write-behind モードで、DB に未反映のタスク更新をタスク ID ごとに集約して保持するバッファです。
+ * 同じタスクへの連続した更新は 1 件にまとめられ、TaskWriteBehindFlusher が一定間隔または件数で DB に反映する。
+ * 無効（ app.tasks.write-behind.enabled=false ）の場合は常に空で、読み取り時の重ね合わせも何もしない。
+ */
+@Component
+public class TaskWriteBuffer {
+
+    private final boolean enabled;
+
+    // この件数に達したらフラッシュを要求する
+    private final int maxPending;
+
+    private final Map<Long, PendingTaskUpdate> pending = new ConcurrentHashMap<>();
+
+    // 件数によるフラッシュ要求を 1 回に抑えるためのフラグ
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile Runnable flushTrigger = () -> {
+    };
+
+    public TaskWriteBuffer(@Value("${app.tasks.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.tasks.write-behind.max-pending:1000}") int maxPending) {
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 件数が上限に達したときに呼び出す処理を登録する（ TaskWriteBehindFlusher が登録する）
+    public void setFlushTrigger(Runnable flushTrigger) {
+        this.flushTrigger = flushTrigger;
+    }
+
+    /*
+     * 更新をバッファに追加する。同じタスクの未反映の更新があれば、その上に重ねて 1 件にまとめる。
+     * @return 集約後の未反映の更新
+     */
+    public PendingTaskUpdate enqueue(Long id, PendingTaskUpdate update) {
+        PendingTaskUpdate merged = pending.merge(id, update, PendingTaskUpdate::mergeWith);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flushTrigger.run();
+        }
+        return merged;
+    }
+
+    /*
+     * 未反映の更新を最大 maxEntries 件取り出す。取り出した更新はバッファから削除される。
+     * 取り出し後に届いた更新は新しいエントリとしてバッファに残る。
+     */
+    public Map<Long, PendingTaskUpdate> drain(int maxEntries) {
+        flushRequested.set(false);
+        Map<Long, PendingTaskUpdate> drained = new HashMap<>();
+        Iterator<Long> ids = pending.keySet().iterator();
+        while (ids.hasNext() && drained.size() < maxEntries) {
+            Long id = ids.next();
+            PendingTaskUpdate update = pending.remove(id);
+            if (update != null) {
+                drained.put(id, update);
+            }
+        }
+        return drained;
+    }
+
+    // 反映に失敗した更新をバッファに戻す（その間に届いた新しい更新を優先する）
+    public void requeue(Map<Long, PendingTaskUpdate> updates) {
+        updates.forEach((id, older) -> pending.merge(id, older, (newer, previous) -> previous.mergeWith(newer)));
+    }
+
+    // タスクの未反映の更新を破棄する（削除時など）
+    public void discard(Long id) {
+        pending.remove(id);
+    }
+
+    // タスクに未反映の更新がある場合、その更新日時を返す
+    public Optional<LocalDateTime> pendingUpdatedAt(Long id) {
+        PendingTaskUpdate update = pending.get(id);
+        return update == null ? Optional.empty() : Optional.of(update.updatedAt());
+    }
+
+    // 未反映の更新の件数
+    public int size() {
+        return pending.size();
+    }
+
+    /*
+     * タスクに未反映の更新を重ねた状態を返す。未反映の更新がなければ引数のタスクをそのまま返す。
+     * 引数のタスク（キャッシュや永続化コンテキストが保持しているインスタンス）は変更せず、コピーに反映する。
+     */
+    public Task overlay(Task task) {
+        if (pending.isEmpty()) {
+            return task;
+        }
+        PendingTaskUpdate update = pending.get(task.getId());
+        if (update == null) {
+            return task;
+        }
+        Task view = task.copy();
+        update.applyTo(view);
+        view.setUpdatedAt(update.updatedAt());
+        return view;
+    }
+
+    // 要約に未反映の更新を重ねた状態を返す。未反映の更新がなければ引数の要約をそのまま返す
+    public TaskSummary overlay(TaskSummary summary) {
+        if (pending.isEmpty()) {
+            return summary;
+        }
+        PendingTaskUpdate update = pending.get(summary.id());
+        return update == null ? summary : update.applyTo(summary);
+    }
+}
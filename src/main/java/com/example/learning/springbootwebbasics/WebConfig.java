@@ -0,0 +1,59 @@
+package com.example.learning.springbootwebbasics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/*
+ * Spring MVC の設定クラスです。
+ * タスク API に同時実行数の制限（ TaskConcurrencyLimitInterceptor ）を適用する。
+ * 変更フィード（ GET /api/tasks/changes ）は接続を長時間保持するため対象外にする。
+ * また、JSON に加えて CBOR / Smile（バイナリ形式）を Accept ヘッダーで選べるようにする。
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final TaskConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    private final boolean concurrencyLimitEnabled;
+
+    public WebConfig(TaskConcurrencyLimitInterceptor concurrencyLimitInterceptor,
+            @Value("${app.tasks.concurrency.enabled:true}") boolean concurrencyLimitEnabled) {
+        this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+    }
+
+    /*
+     * CBOR 形式（ application/cbor ）のコンバーター。
+     * Spring Boot が JSON 用に設定した Jackson2ObjectMapperBuilder から作成し、日時の形式などを JSON と揃える。
+     * HttpMessageConverter の Bean は Spring Boot により既定のコンバーターに追加される（ JSON が優先のまま）。
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    // Smile 形式（ application/x-jackson-smile ）のコンバーター
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (concurrencyLimitEnabled) {
+            registry.addInterceptor(concurrencyLimitInterceptor)
+                    .addPathPatterns("/api/tasks", "/api/tasks/**")
+                    // 変更フィード・エクスポート・一括操作は常にしきい値より長くかかり、共有の上限を下げてしまうため対象外にする
+                    .excludePathPatterns("/api/tasks/changes", "/api/tasks/export", "/api/tasks/batch");
+        }
+    }
+}
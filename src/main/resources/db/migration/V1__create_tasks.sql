@@ -0,0 +1,19 @@
+-- タスクテーブル（ Task エンティティ）
+-- ID はシーケンスから 50 件単位で払い出す（ @SequenceGenerator の allocationSize と一致させる）
+CREATE SEQUENCE tasks_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tasks (
+    id          BIGINT       NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    completed   BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_tasks PRIMARY KEY (id)
+);
+
+-- 完了状態での絞り込み（ completed を先頭列とし、キーセットページングの ID 順もインデックスで解決する）
+CREATE INDEX idx_tasks_completed_id ON tasks (completed, id);
+
+-- 作成日時での絞り込み・並び替え
+CREATE INDEX idx_tasks_created_at ON tasks (created_at);
@@ -0,0 +1,80 @@
+package com.example.learning.springbootwebbasics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+		"app.datasource.replica.sync-interval=1h",
+		"app.datasource.replica.max-lag=0s" })
+@ActiveProfiles("replica")
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	private static final long REPLICA_ONLY_ID = 1_000_000L;
+
+	private static final String REPLICA_ONLY = "$.items[?(@.title == 'Replica only')]";
+
+	private static final String WRITTEN = "$.items[?(@.title == 'Written to primary')]";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskReplicaSynchronizer synchronizer;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@Test
+	void readOnlyQueriesUseReplicaUntilItFallsBehind() throws Exception {
+		synchronizer.sync();
+		// レプリカにだけ存在する行で、どちらから読んだかを見分ける
+		LocalDateTime now = LocalDateTime.now();
+		new JdbcTemplate(replicaDataSource).update(
+				"INSERT INTO tasks (id, title, description, completed, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+				REPLICA_ONLY_ID, "Replica only", null, false, now, now);
+
+		mockMvc.perform(get("/api/tasks/summaries").param("limit", "500"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath(REPLICA_ONLY).isNotEmpty());
+		// @PrimaryRead のため、ID による取得はプライマリから読む
+		mockMvc.perform(get("/api/tasks/{id}", REPLICA_ONLY_ID))
+				.andExpect(status().isNotFound());
+		// 条件付き GET でも、先に読むバージョンの接続がレプリカのまま使い回されない
+		mockMvc.perform(get("/api/tasks/{id}", REPLICA_ONLY_ID).header("If-None-Match", "\"stale\""))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/tasks/{id}", REPLICA_ONLY_ID))
+				.andExpect(status().isNotFound());
+
+		// 書き込み後はレプリカが遅延しているため、読み取りもプライマリで行う
+		mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Written to primary\"}"))
+				.andExpect(status().isCreated());
+		mockMvc.perform(get("/api/tasks/summaries").param("limit", "500"))
+				.andExpect(jsonPath(WRITTEN).isNotEmpty())
+				.andExpect(jsonPath(REPLICA_ONLY).isEmpty());
+
+		// 同期後はレプリカがプライマリと同じ内容になる
+		synchronizer.sync();
+		mockMvc.perform(get("/api/tasks/summaries").param("limit", "500"))
+				.andExpect(jsonPath(WRITTEN).isNotEmpty())
+				.andExpect(jsonPath(REPLICA_ONLY).isEmpty());
+	}
+}
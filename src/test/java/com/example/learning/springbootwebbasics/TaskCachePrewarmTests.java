@@ -0,0 +1,48 @@
+package com.example.learning.springbootwebbasics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// persistent プロファイルで再起動したとき、ApplicationReadyEvent の時点で既存のタスクがキャッシュに読み込まれていることを確認する
+class TaskCachePrewarmTests {
+
+	@TempDir
+	Path dataDir;
+
+	@Test
+	void persistedTasksAreInCacheAfterRestart() {
+		List<Long> ids;
+		try (ConfigurableApplicationContext context = start()) {
+			TaskRepository taskRepository = context.getBean(TaskRepository.class);
+			ids = taskRepository.saveAll(List.of(
+					new Task("Persisted 1", null, false),
+					new Task("Persisted 2", null, true))).stream()
+					.map(Task::getId)
+					.toList();
+		}
+
+		try (ConfigurableApplicationContext context = start()) {
+			Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.TASKS_CACHE);
+			for (Long id : ids) {
+				assertThat(cache.get(id, Task.class)).isNotNull();
+			}
+		}
+	}
+
+	private ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(SpringBootWebBasicsApplication.class)
+				.profiles("persistent")
+				// 既定のプロパティはプロファイルの設定より優先度が低いため、コマンドライン引数で DB の場所を一時ディレクトリに変える
+				.run("--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("tasks") + ";DB_CLOSE_ON_EXIT=FALSE",
+						"--server.port=0");
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.learning.springbootwebbasics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class TaskChangeFeedTests {
+
+	private static final int SUBSCRIBER_BUFFER = 256;
+
+	@Test
+	void slowSubscriberIsDisconnectedWithoutStallingOthers() throws Exception {
+		TaskChangeFeed feed = new TaskChangeFeed(1000, SUBSCRIBER_BUFFER, Duration.ofMinutes(30), 2);
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingEmitter blocked = new RecordingEmitter(release);
+		RecordingEmitter healthy = new RecordingEmitter(null);
+		feed.subscribe(blocked, null);
+		feed.subscribe(healthy, null);
+		try {
+			int published = SUBSCRIBER_BUFFER + 44;
+			for (int i = 1; i <= published; i++) {
+				feed.onTaskChanged(TaskChangedEvent.deleted((long) i));
+				if (i % 50 == 0) {
+					awaitReceived(healthy, i); // 送信が追いつく購読者のキューは溢れさせない
+				}
+			}
+
+			// 送信が止まった購読者はキューが溢れた時点で切断され、もう一方は全てのイベントを受け取る
+			assertThat(blocked.completed.get()).isTrue();
+			assertThat(feed.subscriberCount()).isEqualTo(1);
+			awaitReceived(healthy, published);
+
+			feed.onTaskChanged(TaskChangedEvent.deleted((long) published + 1));
+			awaitReceived(healthy, published + 1);
+			assertThat(healthy.completed.get()).isFalse();
+		} finally {
+			release.countDown();
+			feed.close();
+		}
+	}
+
+	private static void awaitReceived(RecordingEmitter emitter, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (emitter.received.get() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(emitter.received.get()).isEqualTo(count);
+	}
+
+	// 受け取ったイベント数と切断を記録する SseEmitter（ release を指定した場合は、解放されるまで送信を止める）
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final CountDownLatch release;
+
+		private final AtomicInteger received = new AtomicInteger();
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private RecordingEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) {
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			received.incrementAndGet();
+		}
+
+		@Override
+		public void complete() {
+			completed.set(true);
+			super.complete();
+		}
+	}
+}
@@ -0,0 +1,511 @@
+package com.example.learning.springbootwebbasics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskStatistics taskStatistics;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private TaskChangeFeed taskChangeFeed;
+
+	@Autowired
+	private TaskConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+	@BeforeEach
+	void setUp() {
+		taskRepository.deleteAll();
+		for (int i = 1; i <= 5; i++) {
+			taskRepository.save(new Task("Task " + i, "description " + i, i % 2 == 0));
+		}
+	}
+
+	@Test
+	void getAllTasksPagesWithCursor() throws Exception {
+		String firstPage = mockMvc.perform(get("/api/tasks").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(3))
+				.andExpect(jsonPath("$.next").isString())
+				.andReturn().getResponse().getContentAsString();
+
+		String next = JsonPath.read(firstPage, "$.next");
+		mockMvc.perform(get("/api/tasks").param("limit", "3").param("cursor", next))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(2))
+				.andExpect(jsonPath("$.items[0].title").value("Task 4"))
+				.andExpect(jsonPath("$.next").doesNotExist());
+	}
+
+	@Test
+	void getAllTasksFiltersByCompleted() throws Exception {
+		mockMvc.perform(get("/api/tasks").param("completed", "true"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(2))
+				.andExpect(jsonPath("$.items[0].completed").value(true));
+	}
+
+	@Test
+	void getAllTasksRejectsInvalidCursor() throws Exception {
+		mockMvc.perform(get("/api/tasks").param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void exportTasksWritesOneJsonObjectPerLine() throws Exception {
+		String body = mockMvc.perform(get("/api/tasks/export"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertThat(lines).hasSize(5);
+		assertThat((String) JsonPath.read(lines[0], "$.title")).isEqualTo("Task 1");
+	}
+
+	@Test
+	void applyBatchCreatesUpdatesAndDeletesInOneRequest() throws Exception {
+		Long existingId = taskRepository.findAll().get(0).getId();
+		String body = """
+				{"operations": [
+				  {"op": "CREATE", "task": {"title": "Imported", "completed": false}},
+				  {"op": "UPDATE", "id": %d, "task": {"title": "Updated", "completed": true}},
+				  {"op": "DELETE", "id": 999999}
+				]}
+				""".formatted(existingId);
+
+		mockMvc.perform(post("/api/tasks/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$[0].status").value("CREATED"))
+				.andExpect(jsonPath("$[1].status").value("UPDATED"))
+				.andExpect(jsonPath("$[2].status").value("NOT_FOUND"));
+
+		assertThat(taskRepository.findById(existingId)).get().extracting(Task::getTitle).isEqualTo("Updated");
+		assertThat(taskRepository.count()).isEqualTo(6);
+	}
+
+	@Test
+	void applyBatchRejectsMalformedOperation() throws Exception {
+		mockMvc.perform(post("/api/tasks/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"operations\": [{\"op\": \"DELETE\"}]}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getTaskByIdIsServedFromCacheAndRefreshedOnUpdate() throws Exception {
+		Long id = taskRepository.findAll().get(0).getId();
+		mockMvc.perform(get("/api/tasks/{id}", id)).andExpect(status().isOk());
+
+		// キャッシュ済みのため、DB を直接書き換えても古い内容が返る
+		taskRepository.findById(id).ifPresent(task -> {
+			task.setTitle("Changed behind the cache");
+			taskRepository.save(task);
+		});
+		mockMvc.perform(get("/api/tasks/{id}", id))
+				.andExpect(jsonPath("$.title").value("Task 1"));
+
+		mockMvc.perform(put("/api/tasks/{id}", id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Updated via API\", \"completed\": true}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/tasks/{id}", id))
+				.andExpect(jsonPath("$.title").value("Updated via API"));
+	}
+
+	@Test
+	void staleCacheEntryFromConcurrentReadIsEvictedAfterCommit() throws Exception {
+		Task task = taskRepository.findAll().get(0);
+		Long id = task.getId();
+		mockMvc.perform(patch("/api/tasks/{id}", id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Patched\"}"))
+				.andExpect(status().isNoContent());
+		// 変更前の行を読んでいた並行の読み取りが、更新のコミット後に古い値をキャッシュに載せた状態を再現する
+		cacheManager.getCache(CacheConfig.TASKS_CACHE).put(id, task);
+		mockMvc.perform(get("/api/tasks/{id}", id))
+				.andExpect(jsonPath("$.title").value("Task 1"));
+
+		// reevict-delay（ 1 秒）後に取り除かれ、DB の内容が返る
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (cacheManager.getCache(CacheConfig.TASKS_CACHE).get(id) != null && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		mockMvc.perform(get("/api/tasks/{id}", id))
+				.andExpect(jsonPath("$.title").value("Patched"));
+	}
+
+	@Test
+	void getTaskByIdAnswersNotModifiedForMatchingETag() throws Exception {
+		Long id = taskRepository.findAll().get(0).getId();
+		String etag = mockMvc.perform(get("/api/tasks/{id}", id))
+				.andExpect(status().isOk())
+				// JSON / CBOR / Smile で同じ値を使うため弱い ETag
+				.andExpect(header().string("ETag", startsWith("W/")))
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/api/tasks/{id}", id).header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		mockMvc.perform(put("/api/tasks/{id}", id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Changed title\", \"completed\": false}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/tasks/{id}", id).header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Changed title"));
+	}
+
+	@Test
+	void getAllTasksAnswersNotModifiedForMatchingETag() throws Exception {
+		String etag = mockMvc.perform(get("/api/tasks"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/api/tasks").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void patchTaskUpdatesOnlyGivenFields() throws Exception {
+		Task task = taskRepository.findAll().get(0);
+		mockMvc.perform(patch("/api/tasks/{id}", task.getId()).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\": true}"))
+				.andExpect(status().isNoContent())
+				.andExpect(header().exists("ETag"));
+
+		mockMvc.perform(get("/api/tasks/{id}", task.getId()))
+				.andExpect(jsonPath("$.completed").value(true))
+				.andExpect(jsonPath("$.title").value(task.getTitle()))
+				.andExpect(jsonPath("$.description").value(task.getDescription()));
+
+		mockMvc.perform(patch("/api/tasks/{id}", 999999).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\": true}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void deleteTaskReportsMissingTask() throws Exception {
+		Long id = taskRepository.findAll().get(0).getId();
+		mockMvc.perform(delete("/api/tasks/{id}", id)).andExpect(status().isNoContent());
+		mockMvc.perform(delete("/api/tasks/{id}", id)).andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/tasks/{id}", id)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void searchTasksFindsCreatedAndUpdatedTasks() throws Exception {
+		String created = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"牛乳を買う\", \"description\": \"スーパーで zephyr ブランド\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		Integer id = JsonPath.read(created, "$.id");
+
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "牛乳 zephyr"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(id));
+
+		mockMvc.perform(patch("/api/tasks/{id}", id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"パンを買う\"}"))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "牛乳"))
+				.andExpect(jsonPath("$.length()").value(0));
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "パン"))
+				.andExpect(jsonPath("$[0].id").value(id));
+
+		mockMvc.perform(delete("/api/tasks/{id}", id)).andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "zephyr"))
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void searchSortsByIdByDefaultAndMatchesSingleKanji() throws Exception {
+		String first = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"猫に餌をやる\"}"))
+				.andReturn().getResponse().getContentAsString();
+		String second = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"猫の爪\", \"description\": \"猫の爪を切る\"}"))
+				.andReturn().getResponse().getContentAsString();
+		Integer firstId = JsonPath.read(first, "$.id");
+		Integer secondId = JsonPath.read(second, "$.id");
+
+		// 1 文字のキーワードも、単語の一部として含むタスクに一致する
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "猫"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].id").value(firstId))
+				.andExpect(jsonPath("$[1].id").value(secondId));
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "猫").param("sort", "relevance"))
+				.andExpect(jsonPath("$[0].id").value(secondId));
+	}
+
+	@Test
+	void searchReflectsPatchOfCachedTask() throws Exception {
+		String created = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"alphaword\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		Integer id = JsonPath.read(created, "$.id");
+		// キャッシュに載せてから部分更新する
+		mockMvc.perform(get("/api/tasks/{id}", id)).andExpect(status().isOk());
+
+		mockMvc.perform(patch("/api/tasks/{id}", id).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"betaword\"}"))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "alphaword"))
+				.andExpect(jsonPath("$.length()").value(0));
+		mockMvc.perform(get("/api/tasks/search").param("keyword", "betaword"))
+				.andExpect(jsonPath("$[0].id").value(id));
+	}
+
+	@Test
+	void getTasksByIdsReturnsRequestOrderAndMissingIds() throws Exception {
+		List<Long> ids = taskRepository.findAll().stream().map(Task::getId).toList();
+		mockMvc.perform(get("/api/tasks").param("ids", ids.get(2) + "," + ids.get(0) + ",999999"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.tasks.length()").value(2))
+				.andExpect(jsonPath("$.tasks[0].id").value(ids.get(2)))
+				.andExpect(jsonPath("$.tasks[1].id").value(ids.get(0)))
+				.andExpect(jsonPath("$.missing[0]").value(999999));
+
+		mockMvc.perform(post("/api/tasks/lookup").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\": [" + ids.get(1) + ", " + ids.get(1) + "]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.tasks.length()").value(1))
+				.andExpect(jsonPath("$.missing.length()").value(0));
+	}
+
+	@Test
+	void getTaskStatsTracksChangesWithoutScanning() throws Exception {
+		taskStatistics.reconcile(); // setUp はリポジトリを直接操作するため、基準値を読み直す
+		mockMvc.perform(get("/api/tasks/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(5))
+				.andExpect(jsonPath("$.completed").value(2))
+				.andExpect(jsonPath("$.open").value(3));
+
+		mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"New\", \"completed\": true}"))
+				.andExpect(status().isCreated());
+		Long openId = taskRepository.findAll().stream().filter(task -> !task.isCompleted()).findFirst().orElseThrow().getId();
+		mockMvc.perform(put("/api/tasks/{id}", openId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Done\", \"completed\": true}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/tasks/stats"))
+				.andExpect(jsonPath("$.total").value(6))
+				.andExpect(jsonPath("$.completed").value(4))
+				.andExpect(jsonPath("$.open").value(2))
+				.andExpect(jsonPath("$.createdLastMinute").value(greaterThanOrEqualTo(1)));
+
+		// 部分更新と ID 指定の削除も、DB と突き合わせずに正しい件数になる（ dirty にならない）
+		taskStatistics.reconcile();
+		String reconciledAt = JsonPath.read(mockMvc.perform(get("/api/tasks/stats"))
+				.andReturn().getResponse().getContentAsString(), "$.reconciledAt");
+		mockMvc.perform(patch("/api/tasks/{id}", openId).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"completed\": false}"))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/tasks/stats"))
+				.andExpect(jsonPath("$.completed").value(3));
+		Long completedId = taskRepository.findAll().stream().filter(Task::isCompleted).findFirst().orElseThrow().getId();
+		mockMvc.perform(delete("/api/tasks/{id}", completedId)).andExpect(status().isNoContent());
+		mockMvc.perform(delete("/api/tasks/{id}", openId)).andExpect(status().isNoContent());
+		taskStatistics.reconcileIfDirty();
+		mockMvc.perform(get("/api/tasks/stats"))
+				.andExpect(jsonPath("$.total").value(4))
+				.andExpect(jsonPath("$.completed").value(2))
+				.andExpect(jsonPath("$.reconciledAt").value(reconciledAt));
+	}
+
+	@Test
+	void getTaskSummariesOmitsDescriptionAndSharesCursor() throws Exception {
+		String firstPage = mockMvc.perform(get("/api/tasks/summaries").param("limit", "3"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andExpect(jsonPath("$.items.length()").value(3))
+				.andExpect(jsonPath("$.items[0].title").value("Task 1"))
+				.andExpect(jsonPath("$.items[0].updatedAt").exists())
+				.andExpect(jsonPath("$.items[0].description").doesNotExist())
+				.andReturn().getResponse().getContentAsString();
+
+		String next = JsonPath.read(firstPage, "$.next");
+		mockMvc.perform(get("/api/tasks/summaries").param("cursor", next).param("completed", "true"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(1))
+				.andExpect(jsonPath("$.items[0].title").value("Task 4"));
+	}
+
+	@Test
+	void createTaskWithIdempotencyKeyReplaysFirstResponse() throws Exception {
+		String body = "{\"title\": \"Idempotent\", \"completed\": false}";
+		String first = mockMvc.perform(post("/api/tasks").header("Idempotency-Key", "key-1")
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Idempotent-Replayed", "false"))
+				.andReturn().getResponse().getContentAsString();
+		Integer id = JsonPath.read(first, "$.id");
+
+		mockMvc.perform(post("/api/tasks").header("Idempotency-Key", "key-1")
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Idempotent-Replayed", "true"))
+				.andExpect(jsonPath("$.id").value(id));
+		assertThat(taskRepository.count()).isEqualTo(6);
+
+		mockMvc.perform(post("/api/tasks").header("Idempotency-Key", "key-1")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Other\"}"))
+				.andExpect(status().isUnprocessableEntity());
+	}
+
+	@Test
+	void concurrentRequestsWithSameIdempotencyKeyCreateOneTask() throws Exception {
+		String body = "{\"title\": \"Concurrent\"}";
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Callable<MockHttpServletResponse> request = () -> {
+				start.await();
+				return mockMvc.perform(post("/api/tasks").header("Idempotency-Key", "key-concurrent")
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+						.andReturn().getResponse();
+			};
+			Future<MockHttpServletResponse> first = executor.submit(request);
+			Future<MockHttpServletResponse> second = executor.submit(request);
+			start.countDown();
+
+			MockHttpServletResponse firstResponse = first.get(10, TimeUnit.SECONDS);
+			MockHttpServletResponse secondResponse = second.get(10, TimeUnit.SECONDS);
+			assertThat(firstResponse.getStatus()).isEqualTo(201);
+			assertThat(secondResponse.getStatus()).isEqualTo(201);
+			assertThat((Integer) JsonPath.read(firstResponse.getContentAsString(), "$.id"))
+					.isEqualTo(JsonPath.read(secondResponse.getContentAsString(), "$.id"));
+			assertThat(List.of(firstResponse.getHeader("Idempotent-Replayed"), secondResponse.getHeader("Idempotent-Replayed")))
+					.containsExactlyInAnyOrder("false", "true");
+			assertThat(taskRepository.count()).isEqualTo(6);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void idempotencyKeyIsReleasedWhenCreatorThrowsError() {
+		IdempotencyKeyStore store = new IdempotencyKeyStore(10, Duration.ofMinutes(1));
+		TaskRequest request = new TaskRequest("Failing", null, false);
+		Task task = new Task();
+		task.setTitle("Failing");
+
+		assertThatThrownBy(() -> store.createOnce("key-error", request, () -> {
+			throw new StackOverflowError();
+		})).isInstanceOf(StackOverflowError.class);
+		// キーが解放され、再送で作成をやり直せる
+		assertThat(store.createOnce("key-error", request, () -> task).replayed()).isFalse();
+	}
+
+	@Test
+	void streamChangesReplaysEventsAfterLastEventId() throws Exception {
+		String created = mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Streamed\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		Integer id = JsonPath.read(created, "$.id");
+		mockMvc.perform(delete("/api/tasks/{id}", id)).andExpect(status().isNoContent());
+		long lastSeq = taskChangeFeed.lastSeq();
+
+		String stream = mockMvc.perform(get("/api/tasks/changes").header("Last-Event-ID", lastSeq - 2))
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse().getContentAsString();
+		assertThat(stream).contains("id:" + (lastSeq - 1) + "\nevent:created\n");
+		assertThat(stream).contains("id:" + lastSeq + "\nevent:deleted\n");
+		assertThat(stream).contains("\"taskId\":" + id);
+	}
+
+	@Test
+	void writesAreShedWhenWriteBudgetIsExhausted() throws Exception {
+		AimdConcurrencyLimiter writeLimiter = concurrencyLimitInterceptor.getWriteLimiter();
+		int limit = writeLimiter.getLimit();
+		int acquired = 0;
+		while (writeLimiter.tryAcquire()) {
+			acquired++;
+		}
+		try {
+			mockMvc.perform(post("/api/tasks").contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Shed\"}"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string("Retry-After", "1"))
+					.andExpect(jsonPath("$.status").value(503))
+					.andExpect(jsonPath("$.retryAfterSeconds").value(1));
+			// 読み取りは別の上限のため影響を受けない
+			mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+			// 一括操作は常に長くかかるため、上限の対象外
+			mockMvc.perform(post("/api/tasks/batch").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"operations\": [{\"op\": \"CREATE\", \"task\": {\"title\": \"Batched\"}}]}"))
+					.andExpect(status().isOk());
+		} finally {
+			// 処理時間を反映せずに返し、他のテストが使う上限を変えない
+			for (int i = 0; i < acquired; i++) {
+				writeLimiter.cancel();
+			}
+		}
+		assertThat(writeLimiter.getLimit()).isEqualTo(limit);
+		assertThat(taskRepository.count()).isEqualTo(6);
+	}
+
+	@Test
+	void getAllTasksNegotiatesCbor() throws Exception {
+		byte[] body = mockMvc.perform(get("/api/tasks").accept("application/cbor"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/cbor"))
+				.andExpect(header().string("Vary", "Accept"))
+				.andExpect(header().string("ETag", startsWith("W/")))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode page = new CBORMapper().readTree(body);
+		assertThat(page.get("items")).hasSize(5);
+		// 日時は JSON と同じく ISO-8601 の文字列で出力される
+		assertThat(page.get("items").get(0).get("updatedAt").isTextual()).isTrue();
+	}
+
+}
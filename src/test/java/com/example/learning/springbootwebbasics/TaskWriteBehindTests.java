@@ -0,0 +1,66 @@
+package com.example.learning.springbootwebbasics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+		"app.tasks.write-behind.enabled=true",
+		"app.tasks.write-behind.flush-interval=1h" })
+@AutoConfigureMockMvc
+class TaskWriteBehindTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskWriteBuffer writeBuffer;
+
+	@Autowired
+	private TaskWriteBehindFlusher flusher;
+
+	@Test
+	void updatesAreBufferedUntilFlushed() throws Exception {
+		Long id = taskRepository.save(new Task("Task", "description", false)).getId();
+
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(put("/api/tasks/" + id)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"title\":\"Task\",\"description\":\"description\",\"completed\":" + (i % 2 == 0) + "}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.completed").value(i % 2 == 0));
+		}
+		mockMvc.perform(patch("/api/tasks/" + id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Renamed\"}"))
+				.andExpect(status().isNoContent());
+
+		// 読み取りはバッファの状態を返すが、DB にはまだ反映されていない
+		mockMvc.perform(get("/api/tasks/" + id))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Renamed"))
+				.andExpect(jsonPath("$.completed").value(true));
+		assertThat(writeBuffer.size()).isEqualTo(1);
+		assertThat(taskRepository.findById(id).orElseThrow().getTitle()).isEqualTo("Task");
+
+		flusher.flush();
+
+		assertThat(writeBuffer.size()).isZero();
+		Task flushed = taskRepository.findById(id).orElseThrow();
+		assertThat(flushed.getTitle()).isEqualTo("Renamed");
+		assertThat(flushed.isCompleted()).isTrue();
+	}
+}